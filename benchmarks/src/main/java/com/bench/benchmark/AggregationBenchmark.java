@@ -0,0 +1,93 @@
+package com.bench.benchmark;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+import com.bench.model.TransactionColumns;
+import com.bench.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance calculations of {@link TransactionService} over lists and columns of transactions, sequential and
+ * parallel.  The dense spread puts many transactions on each of a few days, the sparse spread puts few transactions on
+ * each of many days.
+ *
+ * Created by dlee.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int count;
+
+    @Param({"dense", "sparse"})
+    public String spread;
+
+    private List<Transaction> transactions;
+    private TransactionColumns columns;
+    private TransactionService ts;
+
+    @Setup
+    public void setUp() {
+        int days = "dense".equals(spread) ? 30 : 36500;
+        transactions = SyntheticTransactions.generate(count, days, 42);
+        columns = new TransactionColumns(count);
+        transactions.forEach(columns);
+        ts = new TransactionService(null, new ObjectMapper());
+    }
+
+    @Benchmark
+    public double totalBalanceList() {
+        return ts.calculateTotalBalance(transactions);
+    }
+
+    @Benchmark
+    public double totalBalanceColumns() {
+        return ts.calculateTotalBalance(columns);
+    }
+
+    @Benchmark
+    public double totalBalanceParallel() {
+        return ts.calculateTotalBalance(columns, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public SortedMap<LocalDate, Double> runningDailyTotalList() {
+        return ts.calculateRunningDailyTotal(transactions);
+    }
+
+    @Benchmark
+    public DailyBalanceSeries dailyBalancesList() {
+        return ts.calculateDailyBalances(transactions);
+    }
+
+    @Benchmark
+    public DailyBalanceSeries dailyBalancesColumns() {
+        return ts.calculateDailyBalances(columns);
+    }
+
+    @Benchmark
+    public DailyBalanceSeries dailyBalancesParallel() {
+        return ts.calculateDailyBalances(columns, ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,81 @@
+package com.bench.benchmark;
+
+import com.bench.model.Transaction;
+import com.bench.model.TransactionModule;
+import com.bench.server.SyntheticTransactionServer;
+import com.bench.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end retrieval of all the transactions from an embedded {@link SyntheticTransactionServer}, through the real
+ * HTTP client.
+ *
+ * Created by dlee.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class GetAllTransactionsBenchmark {
+    @Param({"1000", "10000"})
+    public int totalCount;
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    @Param({"1", "8"})
+    public int maxConcurrentRequests;
+
+    @Param({"0", "5"})
+    public long latencyMillis;
+
+    private SyntheticTransactionServer server;
+    private AsyncHttpClient httpClient;
+    private TransactionService ts;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new SyntheticTransactionServer(42, totalCount, pageSize);
+        server.setLatencyMillis(latencyMillis);
+        server.start();
+        httpClient = new DefaultAsyncHttpClient();
+        ts = new TransactionService(httpClient, new ObjectMapper().registerModule(new TransactionModule()), maxConcurrentRequests);
+        ts.setBaseUrl(server.getBaseUrl());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        httpClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactions() throws Exception {
+        return ts.getAllTransactions();
+    }
+
+    @Benchmark
+    public void forEachTransaction(Blackhole bh) throws Exception {
+        ts.forEachTransaction(bh::consume);
+    }
+}
@@ -0,0 +1,74 @@
+package com.bench.benchmark;
+
+import com.bench.model.TransactionModule;
+import com.bench.model.TransactionPage;
+import com.bench.model.TransactionPageReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of a page of transactions: the ObjectMapper into {@link TransactionPage} against the streaming
+ * {@link TransactionPageReader}, with and without {@link TransactionModule}.
+ *
+ * Created by dlee.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageDeserializationBenchmark {
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    private byte[] body;
+    private String bodyString;
+    private ObjectMapper om;
+    private TransactionPageReader reader;
+    private TransactionPageReader readerWithModule;
+
+    @Setup
+    public void setUp() {
+        body = SyntheticTransactions.page(pageSize, 1, SyntheticTransactions.generate(pageSize, 3650, 42));
+        bodyString = new String(body, StandardCharsets.UTF_8);
+        om = new ObjectMapper();
+        reader = new TransactionPageReader(om);
+        readerWithModule = new TransactionPageReader(new ObjectMapper().registerModule(new TransactionModule()));
+    }
+
+    @Benchmark
+    public TransactionPage objectMapperFromString() throws IOException {
+        return om.readValue(bodyString, TransactionPage.class);
+    }
+
+    @Benchmark
+    public TransactionPage objectMapperFromBytes() throws IOException {
+        return om.readValue(body, TransactionPage.class);
+    }
+
+    @Benchmark
+    public Object pageReader(Blackhole bh) throws IOException {
+        return reader.read(body, bh::consume);
+    }
+
+    @Benchmark
+    public Object pageReaderWithModule(Blackhole bh) throws IOException {
+        return readerWithModule.read(body, bh::consume);
+    }
+}
@@ -0,0 +1,98 @@
+package com.bench.benchmark;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.report.ReportFormat;
+import com.bench.report.ReportWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the running daily balances to a file, printed line by line with {@link DecimalFormat} as the program used
+ * to, and through {@link ReportWriter} in each format.
+ *
+ * Created by dlee.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+    @Param({"3650", "36500"})
+    public int days;
+
+    private DailyBalanceSeries balances;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        long[] dailyTotals = new long[days];
+        for (int i = 0; i < days; i++) {
+            dailyTotals[i] = random.nextInt(200001) - 100000;
+        }
+        balances = DailyBalanceSeries.ofDailyTotals(LocalDate.of(1950, 1, 1).toEpochDay(), dailyTotals);
+        file = Files.createTempFile("report", ".out");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void printlnDecimalFormat() throws IOException {
+        // autoflush like the console, so each line is written on its own
+        try (PrintStream out = new PrintStream(new FileOutputStream(file.toFile()), true)) {
+            DecimalFormat df = new DecimalFormat("#.##");
+            out.println("Total Balance: $" + df.format(balances.getLastBalance()) + "\n");
+            out.println("Running Daily Balances:");
+            for (int i = 0; i < balances.size(); i++) {
+                out.println(balances.getDate(i) + ": $" + df.format(balances.getBalance(i)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void reportWriterText() throws IOException {
+        write(ReportFormat.TEXT);
+    }
+
+    @Benchmark
+    public void reportWriterCsv() throws IOException {
+        write(ReportFormat.CSV);
+    }
+
+    @Benchmark
+    public void reportWriterJson() throws IOException {
+        write(ReportFormat.JSON);
+    }
+
+    private void write(ReportFormat format) throws IOException {
+        try (ReportWriter writer = ReportWriter.open(file, format)) {
+            writer.write(balances);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.bench.benchmark;
+
+import com.bench.model.Transaction;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates deterministic transactions and pages in the format of the API for the benchmarks.
+ *
+ * Created by dlee.
+ */
+final class SyntheticTransactions {
+    static final LocalDate FIRST_DATE = LocalDate.of(1970, 1, 1);
+
+    private SyntheticTransactions() {
+    }
+
+    /**
+     * @param count Number of transactions.
+     * @param days  Number of days the dates are spread over.
+     * @param seed  Seed of the random values.
+     * @return The transactions.
+     */
+    static List<Transaction> generate(int count, int days, long seed) {
+        // share the dates and names between the transactions, as the deserialization would not
+        LocalDate[] dates = new LocalDate[days];
+        for (int i = 0; i < days; i++) {
+            dates[i] = FIRST_DATE.plusDays(i);
+        }
+        String[] ledgers = names("Ledger ", 20);
+        String[] companies = names("Company ", 500);
+
+        Random random = new Random(seed);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double amount = (random.nextInt(2000000) - 1000000) / 100d;
+            transactions.add(new Transaction(dates[random.nextInt(days)], ledgers[random.nextInt(ledgers.length)], amount,
+                    companies[random.nextInt(companies.length)]));
+        }
+        return transactions;
+    }
+
+    private static String[] names(String prefix, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = prefix + i;
+        }
+        return names;
+    }
+
+    /**
+     * @return The JSON body of a page of the API holding the transactions.
+     */
+    static byte[] page(int totalCount, int page, List<Transaction> transactions) {
+        StringBuilder json = new StringBuilder(128 + transactions.size() * 96);
+        json.append("{\"totalCount\":").append(totalCount).append(",\"page\":").append(page).append(",\"transactions\":[");
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction t = transactions.get(i);
+            json.append(i == 0 ? "{" : ",{")
+                    .append("\"Date\":\"").append(t.getDate()).append("\",")
+                    .append("\"Ledger\":\"").append(t.getLedger()).append("\",")
+                    .append("\"Amount\":\"").append(String.format(Locale.ROOT, "%.2f", t.getAmount())).append("\",")
+                    .append("\"Company\":\"").append(t.getCompany()).append("\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The JSON bodies of the pages holding the transactions, in page order.
+     */
+    static List<byte[]> pages(List<Transaction> transactions, int pageSize) {
+        List<byte[]> pages = new ArrayList<>();
+        for (int from = 0; from < transactions.size(); from += pageSize) {
+            List<Transaction> page = transactions.subList(from, Math.min(from + pageSize, transactions.size()));
+            pages.add(page(transactions.size(), pages.size() + 1, page));
+        }
+        return pages;
+    }
+}
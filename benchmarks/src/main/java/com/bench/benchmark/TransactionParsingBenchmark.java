@@ -0,0 +1,62 @@
+package com.bench.benchmark;
+
+import com.bench.model.Transaction;
+import com.bench.model.TransactionModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a single transaction, dominated by its date and amount: the annotation driven deserialization against
+ * {@link com.bench.model.TransactionDeserializer}.
+ *
+ * Created by dlee.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionParsingBenchmark {
+    private byte[] body;
+    private ObjectReader defaultReader;
+    private ObjectReader moduleReader;
+
+    @Setup
+    public void setUp() {
+        body = "{\"Date\":\"2013-12-20\",\"Ledger\":\"Ledger X\",\"Amount\":\"-100.55\",\"Company\":\"Company ABC\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        defaultReader = new ObjectMapper().readerFor(Transaction.class);
+        moduleReader = new ObjectMapper().registerModule(new TransactionModule()).readerFor(Transaction.class);
+    }
+
+    @Benchmark
+    public Transaction defaultDeserializer() throws IOException {
+        return defaultReader.readValue(body);
+    }
+
+    @Benchmark
+    public Transaction transactionDeserializer() throws IOException {
+        return moduleReader.readValue(body);
+    }
+
+    @Benchmark
+    public LocalDate localDateParse() {
+        return LocalDate.parse("2013-12-20");
+    }
+}
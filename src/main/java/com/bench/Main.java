@@ -1,34 +1,233 @@
 package com.bench;
 
-import com.bench.model.Transaction;
+import com.bench.batch.Account;
+import com.bench.batch.AccountResult;
+import com.bench.batch.BatchRunner;
+import com.bench.cache.CheckpointStore;
+import com.bench.cache.PageCache;
+import com.bench.daemon.BalanceDaemon;
+import com.bench.dedup.DedupReport;
+import com.bench.dedup.LongHashSet;
+import com.bench.metrics.TransactionMetrics;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.TransactionModule;
+import com.bench.report.ReportFormat;
+import com.bench.report.ReportWriter;
+import com.bench.service.RequestPolicy;
 import com.bench.service.TransactionService;
+import com.bench.service.TransportProfile;
+import com.bench.spill.SpillFile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.asynchttpclient.AsyncHttpClient;
-import org.asynchttpclient.DefaultAsyncHttpClient;
 
-import java.text.DecimalFormat;
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Main class of running the standalone program.
  *
+ * Options:
+ * <ul>
+ * <li>{@code --base-url=<url>} base URL of the transactions API, {@code http://resttest.bench.co} by default.</li>
+ * <li>{@code --request-timeout=<seconds>} how long a page request may take, 30 by default.</li>
+ * <li>{@code --retries=<count>} how many times a failed page request is retried, 2 by default.</li>
+ * <li>{@code --hedge-percentile=<percent>} latency percentile of the recent pages beyond which a page is requested
+ * again in parallel, disabled by default.</li>
+ * <li>{@code --connect-timeout=<seconds>} how long opening a connection may take, 5 by default.</li>
+ * <li>{@code --read-timeout=<seconds>} how long a connection may stay idle waiting for a response, 30 by default.</li>
+ * <li>{@code --no-compression} does not accept compressed pages, which are otherwise requested with gzip or deflate
+ * and inflated as they are read.</li>
+ * <li>{@code --no-metrics} records no metrics, which are otherwise exposed over JMX as
+ * {@code com.bench:type=TransactionMetrics}.</li>
+ * <li>{@code --metrics-summary} prints a summary line of the metrics to the standard error at the end of the run.</li>
+ * <li>{@code --cache} caches the pages on disk and revalidates them instead of downloading every page.</li>
+ * <li>{@code --cache-dir=<path>} caches the pages in the directory instead of {@code ~/.bench/cache}.</li>
+ * <li>{@code --cache-max-age=<seconds>} how long a cached page is used without revalidating it, 0 by default.</li>
+ * <li>{@code --checkpoint[=<path>]} saves a checkpoint, {@code ~/.bench/checkpoint} by default, and only retrieves the
+ * pages past it on the next run, instead of rebuilding the balances from all the pages.</li>
+ * <li>{@code --spill[=<path>]} retrieves all the transactions into a memory-mapped spill file,
+ * {@code ~/.bench/transactions.spill} by default, and calculates the balances from it, without a checkpoint.</li>
+ * <li>{@code --from-spill=<path>} calculates the balances from a spill file of an earlier run, without any request.</li>
+ * <li>{@code --dedup} rejects the repeats of a transaction already retrieved, e.g. shifted onto the next page while
+ * the pages are retrieved, and warns on the standard error when there were repeats or the number of unique transactions
+ * differs from the total count of the feed.</li>
+ * <li>{@code --format=<text|csv|json>} format of the running daily balances, {@code text} by default.</li>
+ * <li>{@code --output=<path>} file where the running daily balances are written, the standard output by default.</li>
+ * <li>{@code --batch=<path>} runs the accounts listed in the file, one {@code <id> <base URL>} per line, through one
+ * HTTP client, printing the total balance of each account as it is done.  There is no checkpoint in batch mode.</li>
+ * <li>{@code --batch-accounts=<count>} how many accounts of the batch are retrieved at once, 16 by default.</li>
+ * <li>{@code --batch-requests=<count>} how many page requests an account of the batch has in flight, 4 by default.</li>
+ * <li>{@code --batch-output=<path>} directory where the running daily balances of each account of the batch are
+ * written in the format of {@code --format}, to {@code <id>.txt}, {@code <id>.csv} or {@code <id>.json}.</li>
+ * <li>{@code --daemon[=<port>]} keeps running and serves the balances on the port of the loopback address, 9090 by
+ * default, refreshing them in the background, from the checkpoint with {@code --checkpoint}, until the process is
+ * stopped.</li>
+ * <li>{@code --refresh-interval=<seconds>} delay between two refreshes of the daemon, 60 by default.</li>
+ * </ul>
+ *
  * Created by dlee.
  */
 public class Main {
+    private static final Path HOME = Paths.get(System.getProperty("user.home"), ".bench");
 
     public static void main(String... args) {
-        DecimalFormat df = new DecimalFormat("#.##");
-        ObjectMapper om = new ObjectMapper();
+        ObjectMapper om = new ObjectMapper().registerModule(new TransactionModule());
 
-        try (AsyncHttpClient httpClient = new DefaultAsyncHttpClient()) {
-            TransactionService ts = new TransactionService(httpClient, om);
-            List<Transaction> transactions = ts.getAllTransactions();
-            System.out.println("Total Balance: $" + df.format(ts.calculateTotalBalance(transactions)) + "\n");
+        Options options = new Options(args);
+        TransactionMetrics metrics = options.has("no-metrics") ? null : new TransactionMetrics();
+        if (metrics != null) {
+            try {
+                metrics.register();
+            } catch (JMException e) {
+                // still recorded for the summary
+            }
+        }
+        if (options.has("batch")) {
+            runBatch(options, om, metrics);
+        } else if (options.has("daemon")) {
+            runDaemon(options, om, metrics);
+        } else {
+            run(options, om, metrics);
+        }
+        if (metrics != null && options.has("metrics-summary")) {
+            System.err.println("Metrics: " + metrics.summary());
+        }
+    }
 
-            System.out.println("Running Daily Balances:");
-            ts.calculateRunningDailyTotal(transactions).entrySet().forEach(e -> System.out.println(e.getKey() + ": $" + df.format(e.getValue())));
+    private static void run(Options options, ObjectMapper om, TransactionMetrics metrics) {
+        try (AsyncHttpClient httpClient = transportProfileOf(options).createHttpClient(metrics)) {
+            TransactionService ts = serviceOf(options, httpClient, om, metrics);
+            DailyBalanceSeries dailyBalances;
+            if (options.has("from-spill")) {
+                try (SpillFile spill = SpillFile.open(Paths.get(options.get("from-spill", "")))) {
+                    dailyBalances = ts.calculateDailyBalances(spill);
+                }
+            } else if (options.has("spill")) {
+                try (SpillFile spill = ts.spillAllTransactions(Paths.get(options.get("spill", HOME.resolve("transactions.spill").toString())))) {
+                    dailyBalances = ts.calculateDailyBalances(spill);
+                }
+            } else {
+                // aggregate as the pages arrive instead of holding every transaction in memory, extending the last run
+                dailyBalances = ts.syncDailyBalances();
+            }
+            DedupReport report = ts.getLastDedupReport();
+            if (report != null && (report.getDuplicateCount() > 0 || report.isCountMismatch())) {
+                System.err.println("Warning: transactions differ from the total count of the feed: " + report);
+            }
+            ReportFormat format = ReportFormat.of(options.get("format", ReportFormat.TEXT.name()));
+            String output = options.get("output", null);
+            try (ReportWriter writer = output == null ? ReportWriter.toStandardOutput(format) : ReportWriter.open(Paths.get(output), format)) {
+                writer.write(dailyBalances);
+            }
         } catch (Exception e) {
             System.err.println("Failed to retrieve transactions: " + e.getMessage());
         }
     }
+
+    private static void runDaemon(Options options, ObjectMapper om, TransactionMetrics metrics) {
+        int port = (int) options.getLong("daemon", BalanceDaemon.DEFAULT_PORT);
+        long refreshIntervalMillis = options.getLong("refresh-interval", BalanceDaemon.DEFAULT_REFRESH_INTERVAL_MILLIS / 1000) * 1000;
+        // the JDK server writes the headers and the body separately, without TCP_NODELAY the body waits for a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        try (AsyncHttpClient httpClient = transportProfileOf(options).createHttpClient(metrics);
+             BalanceDaemon daemon = new BalanceDaemon(serviceOf(options, httpClient, om, metrics), refreshIntervalMillis)) {
+            daemon.start(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+            System.err.println("Serving balances at " + daemon.getBaseUrl());
+            daemon.awaitClose();
+        } catch (Exception e) {
+            System.err.println("Failed to run the daemon: " + e.getMessage());
+        }
+    }
+
+    private static TransactionService serviceOf(Options options, AsyncHttpClient httpClient, ObjectMapper om, TransactionMetrics metrics) throws IOException {
+        TransactionService ts = new TransactionService(httpClient, om);
+        ts.setBaseUrl(options.get("base-url", TransactionService.DEFAULT_BASE_URL));
+        ts.setRequestPolicy(requestPolicyOf(options));
+        ts.setMetrics(metrics);
+        ts.setPageCache(pageCacheOf(options));
+        if (options.has("checkpoint")) {
+            ts.setCheckpointStore(new CheckpointStore(Paths.get(options.get("checkpoint", HOME.resolve("checkpoint").toString()))));
+        }
+        if (options.has("dedup")) {
+            ts.setFingerprints(LongHashSet::new);
+        }
+        return ts;
+    }
+
+    private static void runBatch(Options options, ObjectMapper om, TransactionMetrics metrics) {
+        int maxConcurrentAccounts = (int) options.getLong("batch-accounts", BatchRunner.DEFAULT_MAX_CONCURRENT_ACCOUNTS);
+        int maxRequestsPerAccount = (int) options.getLong("batch-requests", BatchRunner.DEFAULT_MAX_REQUESTS_PER_ACCOUNT);
+        String output = options.get("batch-output", null);
+        ReportFormat format = ReportFormat.of(options.get("format", ReportFormat.TEXT.name()));
+        try (AsyncHttpClient httpClient = BatchRunner.createHttpClient(maxConcurrentAccounts, maxRequestsPerAccount, transportProfileOf(options), metrics)) {
+            List<Account> accounts = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(options.get("batch", "")), StandardCharsets.UTF_8)) {
+                if (!Account.isSkipped(line)) {
+                    accounts.add(Account.parse(line));
+                }
+            }
+            Path outputDir = output == null ? null : Files.createDirectories(Paths.get(output));
+
+            BatchRunner runner = new BatchRunner(httpClient, om, maxConcurrentAccounts, maxRequestsPerAccount);
+            runner.setRequestPolicy(requestPolicyOf(options));
+            runner.setMetrics(metrics);
+            runner.setPageCache(pageCacheOf(options));
+            runner.run(accounts, result -> printResult(result, outputDir, format)).get();
+        } catch (Exception e) {
+            System.err.println("Failed to run the batch: " + e.getMessage());
+        }
+    }
+
+    private static RequestPolicy requestPolicyOf(Options options) {
+        RequestPolicy policy = new RequestPolicy();
+        policy.setRequestTimeoutMillis((int) options.getLong("request-timeout", RequestPolicy.DEFAULT_REQUEST_TIMEOUT_MILLIS / 1000) * 1000);
+        policy.setMaxRetries((int) options.getLong("retries", RequestPolicy.DEFAULT_MAX_RETRIES));
+        policy.setHedgePercentile(options.getLong("hedge-percentile", 0) / 100d);
+        return policy;
+    }
+
+    private static TransportProfile transportProfileOf(Options options) {
+        TransportProfile profile = new TransportProfile();
+        profile.setCompression(!options.has("no-compression"));
+        profile.setConnectTimeoutMillis((int) options.getLong("connect-timeout", TransportProfile.DEFAULT_CONNECT_TIMEOUT_MILLIS / 1000) * 1000);
+        profile.setReadTimeoutMillis((int) options.getLong("read-timeout", TransportProfile.DEFAULT_READ_TIMEOUT_MILLIS / 1000) * 1000);
+        return profile;
+    }
+
+    private static PageCache pageCacheOf(Options options) throws IOException {
+        if (!options.has("cache") && !options.has("cache-dir")) {
+            return null;
+        }
+        Path cacheDir = Paths.get(options.get("cache-dir", HOME.resolve("cache").toString()));
+        return new PageCache(cacheDir, PageCache.DEFAULT_MAX_BYTES, options.getLong("cache-max-age", 0) * 1000);
+    }
+
+    private static void printResult(AccountResult result, Path outputDir, ReportFormat format) {
+        String id = result.getAccount().getId();
+        if (!result.isSuccess()) {
+            System.out.println(id + ": Failed to retrieve transactions: " + result.getError().getMessage());
+            return;
+        }
+        DailyBalanceSeries dailyBalances = result.getBalances();
+        System.out.println(id + ": Total Balance: $" + ReportWriter.formatAmount(dailyBalances.getLastBalanceMinorUnits()));
+        if (outputDir == null) {
+            return;
+        }
+        // ids are free text, so only keep the characters safe in a file name
+        Path file = outputDir.resolve(id.replaceAll("[^A-Za-z0-9._-]", "_") + "." + format.getExtension());
+        try (ReportWriter writer = ReportWriter.open(file, format)) {
+            writer.write(dailyBalances);
+        } catch (IOException e) {
+            System.err.println(id + ": Failed to write " + file + ": " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package com.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the standalone program, given as {@code --name} or {@code --name=value}.
+ *
+ * Created by dlee.
+ */
+class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String... args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    String get(String name, String defaultValue) {
+        String value = values.get(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        try {
+            return value == null || value.isEmpty() ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number for --" + name + ": " + value);
+        }
+    }
+}
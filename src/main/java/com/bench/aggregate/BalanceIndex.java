@@ -0,0 +1,222 @@
+package com.bench.aggregate;
+
+import com.bench.model.Amounts;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * An updatable index of the balances by day, for transactions arriving in any date order, e.g. corrections to old
+ * dates.  The daily totals are held in minor units in a Fenwick tree over a dense range of days, so adding a
+ * transaction and looking up the balance as of a day or the sum of a range of days are O(log d), where d is the number
+ * of days covered, instead of rebuilding the running balances.
+ *
+ * The range grows to cover the dates fed, by at least half of its size so the O(d) rebuild of the tree is amortized.
+ * The index is not thread-safe.
+ *
+ * Created by dlee.
+ */
+public class BalanceIndex implements Consumer<Transaction> {
+
+    // tree[j] holds the sum of the daily totals of the days (j - lowbit(j), j], one-based
+    private long[] tree = new long[1];
+    private long[] dailyTotals = new long[0];
+    private long baseEpochDay;
+    private long minEpochDay = Long.MAX_VALUE;
+    private long maxEpochDay = Long.MIN_VALUE;
+    private long totalMinorUnits;
+    private long count;
+
+    @Override
+    public void accept(Transaction transaction) {
+        add(transaction);
+    }
+
+    /**
+     * Adds a transaction of any date.
+     *
+     * @param transaction The transaction.
+     */
+    public void add(Transaction transaction) {
+        add(transaction.getDate().toEpochDay(), Amounts.toMinorUnits(transaction.getAmount()));
+    }
+
+    /**
+     * Adds an amount to the total of a day.
+     *
+     * @param epochDay   The day of the amount.
+     * @param minorUnits The amount in minor units, negative to reverse an earlier amount.
+     */
+    public void add(long epochDay, long minorUnits) {
+        addToDay(epochDay, minorUnits);
+        count++;
+    }
+
+    private void addToDay(long epochDay, long minorUnits) {
+        ensureCovers(epochDay);
+        int index = (int) (epochDay - baseEpochDay);
+        dailyTotals[index] += minorUnits;
+        for (int j = index + 1; j < tree.length; j += j & -j) {
+            tree[j] += minorUnits;
+        }
+        minEpochDay = Math.min(minEpochDay, epochDay);
+        maxEpochDay = Math.max(maxEpochDay, epochDay);
+        totalMinorUnits += minorUnits;
+    }
+
+    /**
+     * Adds the daily totals behind running daily balances, e.g. to start from the balances calculated by a run.
+     *
+     * @param dailyBalances The running daily balances to add, the first day being the day before the earliest date.
+     * @see DailyTotalAggregator#addDailyBalances(DailyBalanceSeries)
+     */
+    public void addDailyBalances(DailyBalanceSeries dailyBalances) {
+        for (int i = 1; i < dailyBalances.size(); i++) {
+            long minorUnits = dailyBalances.getBalanceMinorUnits(i) - dailyBalances.getBalanceMinorUnits(i - 1);
+            if (minorUnits != 0) {
+                addToDay(dailyBalances.getEpochDay(i), minorUnits);
+            }
+        }
+    }
+
+    /**
+     * @param date The day to look up.
+     * @return The running balance as of the end of the day, in minor units.
+     */
+    public long balanceMinorUnitsAsOf(LocalDate date) {
+        return prefixSum(date.toEpochDay());
+    }
+
+    /**
+     * @param date The day to look up.
+     * @return The running balance as of the end of the day.
+     */
+    public double balanceAsOf(LocalDate date) {
+        return Amounts.fromMinorUnits(balanceMinorUnitsAsOf(date));
+    }
+
+    /**
+     * @param from The first day of the range, inclusive.
+     * @param to   The last day of the range, inclusive.
+     * @return The sum of the amounts of the days of the range, in minor units, 0 if the range is empty.
+     */
+    public long sumMinorUnitsBetween(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        return toDay < fromDay ? 0 : prefixSum(toDay) - prefixSum(fromDay - 1);
+    }
+
+    /**
+     * @param from The first day of the range, inclusive.
+     * @param to   The last day of the range, inclusive.
+     * @return The sum of the amounts of the days of the range, 0 if the range is empty.
+     */
+    public double sumBetween(LocalDate from, LocalDate to) {
+        return Amounts.fromMinorUnits(sumMinorUnitsBetween(from, to));
+    }
+
+    /**
+     * @param date The day to look up.
+     * @return The total amount of the day in minor units.
+     */
+    public long getDailyTotalMinorUnits(LocalDate date) {
+        long index = date.toEpochDay() - baseEpochDay;
+        return index >= 0 && index < dailyTotals.length ? dailyTotals[(int) index] : 0;
+    }
+
+    /**
+     * @return The total balance of all the amounts added, in minor units.
+     */
+    public long getTotalMinorUnits() {
+        return totalMinorUnits;
+    }
+
+    /**
+     * @return The number of transactions and amounts added, without the days of the daily balances added.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The earliest date added so far, NULL if nothing was added.
+     */
+    public LocalDate getFirstDate() {
+        return isEmpty() ? null : LocalDate.ofEpochDay(minEpochDay);
+    }
+
+    /**
+     * @return The last date added so far, NULL if nothing was added.
+     */
+    public LocalDate getLastDate() {
+        return isEmpty() ? null : LocalDate.ofEpochDay(maxEpochDay);
+    }
+
+    /**
+     * Takes a snapshot of the running daily balances the same way as {@link DailyTotalAggregator#getDailyBalances()},
+     * in O(d).
+     *
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries getDailyBalances() {
+        if (isEmpty()) {
+            return DailyBalanceSeries.empty();
+        }
+
+        // one slot for the day before the earliest date, then one per day up to the last date
+        long startDay = minEpochDay - 1;
+        long[] totals = new long[(int) (maxEpochDay - startDay + 1)];
+        System.arraycopy(dailyTotals, (int) (minEpochDay - baseEpochDay), totals, 1, totals.length - 1);
+        return DailyBalanceSeries.ofDailyTotals(startDay, totals);
+    }
+
+    private boolean isEmpty() {
+        return minEpochDay > maxEpochDay;
+    }
+
+    /**
+     * @return The sum of the daily totals up to the day, inclusive.
+     */
+    private long prefixSum(long epochDay) {
+        long index = epochDay - baseEpochDay;
+        if (index < 0) {
+            return 0;
+        }
+        if (index >= dailyTotals.length) {
+            return totalMinorUnits;
+        }
+        long sum = 0;
+        for (int j = (int) index + 1; j > 0; j -= j & -j) {
+            sum += tree[j];
+        }
+        return sum;
+    }
+
+    private void ensureCovers(long epochDay) {
+        long index = epochDay - baseEpochDay;
+        if (dailyTotals.length > 0 && index >= 0 && index < dailyTotals.length) {
+            return;
+        }
+        DayRange range = DayRange.covering(baseEpochDay, dailyTotals.length, epochDay);
+        long[] grown = range.copyOf(dailyTotals, baseEpochDay);
+        baseEpochDay = range.getFirstEpochDay();
+        resize(grown);
+    }
+
+    /**
+     * Replaces the daily totals and rebuilds the tree over them in O(d), each node adding its sum to its parent.
+     */
+    private void resize(long[] totals) {
+        dailyTotals = totals;
+        tree = new long[totals.length + 1];
+        System.arraycopy(totals, 0, tree, 1, totals.length);
+        for (int j = 1; j < tree.length; j++) {
+            int parent = j + (j & -j);
+            if (parent < tree.length) {
+                tree[parent] += tree[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bench.aggregate;
+
+import com.bench.model.Amounts;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally sums the amount of the transactions it is fed per day, without keeping the transactions.  The totals
+ * are held in minor units in a dense array covering the days between the earliest and last dates fed, so the memory
+ * used is bounded by the number of days rather than the number of transactions.
+ *
+ * Created by dlee.
+ */
+public class DailyTotalAggregator implements Consumer<Transaction> {
+
+    private long[] dailyTotals = new long[0];
+    private long baseEpochDay;
+    private long minEpochDay = Long.MAX_VALUE;
+    private long maxEpochDay = Long.MIN_VALUE;
+
+    @Override
+    public void accept(Transaction transaction) {
+        add(transaction.getDate().toEpochDay(), Amounts.toMinorUnits(transaction.getAmount()));
+    }
+
+    /**
+     * Adds an amount to the total of a day.
+     *
+     * @param epochDay   The day of the amount.
+     * @param minorUnits The amount in minor units.
+     */
+    public void add(long epochDay, long minorUnits) {
+        ensureCovers(epochDay);
+        dailyTotals[(int) (epochDay - baseEpochDay)] += minorUnits;
+        minEpochDay = Math.min(minEpochDay, epochDay);
+        maxEpochDay = Math.max(maxEpochDay, epochDay);
+    }
+
+    /**
+     * Adds the daily totals behind running daily balances, e.g. to extend balances calculated by an earlier run.  The
+     * first day of the balances is the day before the earliest date, as returned by {@link #getDailyBalances()}.
+     *
+     * @param dailyBalances The running daily balances to add.
+     */
+    public void addDailyBalances(DailyBalanceSeries dailyBalances) {
+        for (int i = 1; i < dailyBalances.size(); i++) {
+            add(dailyBalances.getEpochDay(i), dailyBalances.getBalanceMinorUnits(i) - dailyBalances.getBalanceMinorUnits(i - 1));
+        }
+    }
+
+    /**
+     * @return The earliest date fed so far, NULL if no transaction was fed.
+     */
+    public LocalDate getFirstDate() {
+        return isEmpty() ? null : LocalDate.ofEpochDay(minEpochDay);
+    }
+
+    /**
+     * @return The last date fed so far, NULL if no transaction was fed.
+     */
+    public LocalDate getLastDate() {
+        return isEmpty() ? null : LocalDate.ofEpochDay(maxEpochDay);
+    }
+
+    /**
+     * @param date The day to look up.
+     * @return The total amount of the day in minor units.
+     */
+    public long getDailyTotalMinorUnits(LocalDate date) {
+        long index = date.toEpochDay() - baseEpochDay;
+        return index >= 0 && index < dailyTotals.length ? dailyTotals[(int) index] : 0;
+    }
+
+    /**
+     * Calculates the running daily balances of the transactions fed so far with a single prefix-sum pass.
+     * The result will contain the day before the earliest date and any missing days between the earliest and last
+     * dates.
+     *
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries getDailyBalances() {
+        if (isEmpty()) {
+            return DailyBalanceSeries.empty();
+        }
+
+        // one slot for the day before the earliest date, then one per day up to the last date
+        long startDay = minEpochDay - 1;
+        long[] totals = new long[(int) (maxEpochDay - startDay + 1)];
+        System.arraycopy(dailyTotals, (int) (minEpochDay - baseEpochDay), totals, 1, totals.length - 1);
+        return DailyBalanceSeries.ofDailyTotals(startDay, totals);
+    }
+
+    /**
+     * @return The running daily balances, as a sorted map.
+     * @see #getDailyBalances()
+     */
+    public SortedMap<LocalDate, Double> getRunningDailyTotal() {
+        return new TreeMap<>(getDailyBalances().asSortedMap());
+    }
+
+    private boolean isEmpty() {
+        return minEpochDay > maxEpochDay;
+    }
+
+    private void ensureCovers(long epochDay) {
+        long index = epochDay - baseEpochDay;
+        if (dailyTotals.length > 0 && index >= 0 && index < dailyTotals.length) {
+            return;
+        }
+        DayRange range = DayRange.covering(baseEpochDay, dailyTotals.length, epochDay);
+        dailyTotals = range.copyOf(dailyTotals, baseEpochDay);
+        baseEpochDay = range.getFirstEpochDay();
+    }
+}
@@ -0,0 +1,59 @@
+package com.bench.aggregate;
+
+/**
+ * The range of days covered by a dense array of daily totals, indexed by the day from the first day of the range.
+ * The range grows towards a day out of range by at least half of its length, so adding the days in any order copies
+ * the array O(log d) times.
+ *
+ * Created by dlee.
+ */
+final class DayRange {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final long firstEpochDay;
+    private final int length;
+
+    private DayRange(long firstEpochDay, int length) {
+        this.firstEpochDay = firstEpochDay;
+        this.length = length;
+    }
+
+    /**
+     * @param firstEpochDay The first day of the current range.
+     * @param length        The number of days of the current range, 0 when there is none yet.
+     * @param epochDay      The day to cover, out of the current range.
+     * @return The range grown to cover the day, centered on the day when there is no current range.
+     */
+    static DayRange covering(long firstEpochDay, int length, long epochDay) {
+        if (length == 0) {
+            return new DayRange(epochDay - DEFAULT_CAPACITY / 2, DEFAULT_CAPACITY);
+        }
+        long index = epochDay - firstEpochDay;
+        // grow towards the side that is out of range, by at least half of the current size
+        long growth = Math.max(length >> 1, index < 0 ? -index : index - length + 1);
+        int grownLength = Math.toIntExact(length + growth);
+        return new DayRange(index < 0 ? firstEpochDay - growth : firstEpochDay, grownLength);
+    }
+
+    /**
+     * @return The first day of the range.
+     */
+    long getFirstEpochDay() {
+        return firstEpochDay;
+    }
+
+    /**
+     * Copies daily totals into an array of this range, each total at the index of its day.
+     *
+     * @param totals       The daily totals of a range within this one.
+     * @param fromEpochDay The first day of the totals.
+     * @return The daily totals of this range.
+     */
+    long[] copyOf(long[] totals, long fromEpochDay) {
+        long[] copy = new long[length];
+        if (totals.length > 0) {
+            System.arraycopy(totals, 0, copy, (int) (fromEpochDay - firstEpochDay), totals.length);
+        }
+        return copy;
+    }
+}
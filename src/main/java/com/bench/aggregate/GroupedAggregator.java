@@ -0,0 +1,327 @@
+package com.bench.aggregate;
+
+import com.bench.model.Amounts;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.StringDictionary;
+import com.bench.model.Transaction;
+import com.bench.model.TransactionColumns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally sums the transactions it is fed per ledger and per company in a single pass, without keeping the
+ * transactions.  The ledger and company values are interned into dense ids, so the totals of a group are primitive
+ * arrays indexed by its id and its daily totals are held in one primitive map keyed by the id and the epoch day,
+ * which only holds the days a group has transactions on.
+ *
+ * Created by dlee.
+ */
+public class GroupedAggregator implements Consumer<Transaction> {
+    private final Groups ledgers = new Groups();
+    private final Groups companies = new Groups();
+    private long totalMinorUnits;
+    private long count;
+
+    @Override
+    public void accept(Transaction transaction) {
+        add(transaction.getDate().toEpochDay(), transaction.getLedger(), Amounts.toMinorUnits(transaction.getAmount()), transaction.getCompany());
+    }
+
+    /**
+     * Adds a transaction.
+     *
+     * @param epochDay   The day of the transaction.
+     * @param ledger     The ledger of the transaction.
+     * @param minorUnits The amount in minor units.
+     * @param company    The company of the transaction.
+     */
+    public void add(long epochDay, String ledger, long minorUnits, String company) {
+        int day = Math.toIntExact(epochDay);
+        ledgers.add(ledgers.names.encode(ledger), day, minorUnits);
+        companies.add(companies.names.encode(company), day, minorUnits);
+        totalMinorUnits += minorUnits;
+        count++;
+    }
+
+    /**
+     * Adds all the transactions of the columns, translating their ledger and company codes to the ids of this
+     * aggregator once per distinct value rather than once per transaction.
+     *
+     * @param columns The transactions to add.
+     */
+    public void addAll(TransactionColumns columns) {
+        int[] ledgerIds = ledgers.translate(columns.getLedgers());
+        int[] companyIds = companies.translate(columns.getCompanies());
+        for (int i = 0; i < columns.size(); i++) {
+            int day = columns.getEpochDay(i);
+            long minorUnits = columns.getAmountMinorUnits(i);
+            ledgers.add(ledgerIds[columns.getLedgerCode(i)], day, minorUnits);
+            companies.add(companyIds[columns.getCompanyCode(i)], day, minorUnits);
+            totalMinorUnits += minorUnits;
+        }
+        count += columns.size();
+    }
+
+    /**
+     * @return The totals of each ledger.
+     */
+    public Groups getLedgers() {
+        return ledgers;
+    }
+
+    /**
+     * @return The totals of each company.
+     */
+    public Groups getCompanies() {
+        return companies;
+    }
+
+    /**
+     * @return The total balance of all the transactions fed so far, in minor units.
+     */
+    public long getTotalMinorUnits() {
+        return totalMinorUnits;
+    }
+
+    /**
+     * @return The total balance of all the transactions fed so far.
+     */
+    public double getTotalBalance() {
+        return Amounts.fromMinorUnits(totalMinorUnits);
+    }
+
+    /**
+     * @return The number of transactions fed so far.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The totals of the groups of one field, e.g. the ledgers.  A group that was never fed has no transaction and a
+     * total of 0.
+     */
+    public static final class Groups {
+        private static final int DEFAULT_CAPACITY = 16;
+
+        private final StringDictionary names = new StringDictionary();
+        private final LongLongHashMap dailyTotals = new LongLongHashMap();
+        private long[] totals = new long[DEFAULT_CAPACITY];
+        private long[] spendings = new long[DEFAULT_CAPACITY];
+        private int[] counts = new int[DEFAULT_CAPACITY];
+        private int[] minEpochDays = new int[DEFAULT_CAPACITY];
+        private int[] maxEpochDays = new int[DEFAULT_CAPACITY];
+
+        private Groups() {
+        }
+
+        private void add(int id, int epochDay, long minorUnits) {
+            if (id >= totals.length) {
+                grow(id + 1);
+            }
+            if (counts[id] == 0) {
+                minEpochDays[id] = epochDay;
+                maxEpochDays[id] = epochDay;
+            } else {
+                minEpochDays[id] = Math.min(minEpochDays[id], epochDay);
+                maxEpochDays[id] = Math.max(maxEpochDays[id], epochDay);
+            }
+            totals[id] += minorUnits;
+            if (minorUnits < 0) {
+                spendings[id] -= minorUnits;
+            }
+            counts[id]++;
+            dailyTotals.addTo(keyOf(id, epochDay), minorUnits);
+        }
+
+        /**
+         * @return The id of this aggregator of each code of the dictionary, interning the values not seen yet.
+         */
+        private int[] translate(StringDictionary dictionary) {
+            int[] ids = new int[dictionary.size()];
+            for (int code = 0; code < ids.length; code++) {
+                ids[code] = names.encode(dictionary.decode(code));
+            }
+            return ids;
+        }
+
+        private void grow(int minCapacity) {
+            int capacity = Math.max(minCapacity, totals.length + (totals.length >> 1));
+            totals = Arrays.copyOf(totals, capacity);
+            spendings = Arrays.copyOf(spendings, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            minEpochDays = Arrays.copyOf(minEpochDays, capacity);
+            maxEpochDays = Arrays.copyOf(maxEpochDays, capacity);
+        }
+
+        private static long keyOf(int id, int epochDay) {
+            return (long) id << 32 | epochDay & 0xFFFFFFFFL;
+        }
+
+        /**
+         * @return The number of groups, i.e. of distinct values fed so far.
+         */
+        public int size() {
+            return names.size();
+        }
+
+        /**
+         * @return The names of the groups, in order of first appearance.
+         */
+        public List<String> getNames() {
+            List<String> list = new ArrayList<>(names.size());
+            for (int id = 0; id < names.size(); id++) {
+                list.add(names.decode(id));
+            }
+            return list;
+        }
+
+        /**
+         * @param name The name of the group.
+         * @return The total balance of the group, in minor units.
+         */
+        public long getTotalMinorUnits(String name) {
+            int id = names.codeOf(name);
+            return id < 0 ? 0 : totals[id];
+        }
+
+        /**
+         * @param name The name of the group.
+         * @return The total balance of the group.
+         */
+        public double getTotal(String name) {
+            return Amounts.fromMinorUnits(getTotalMinorUnits(name));
+        }
+
+        /**
+         * @param name The name of the group.
+         * @return The sum of the negative amounts of the group as a positive number, in minor units.
+         */
+        public long getSpendingMinorUnits(String name) {
+            int id = names.codeOf(name);
+            return id < 0 ? 0 : spendings[id];
+        }
+
+        /**
+         * @param name The name of the group.
+         * @return The sum of the negative amounts of the group as a positive number.
+         */
+        public double getSpending(String name) {
+            return Amounts.fromMinorUnits(getSpendingMinorUnits(name));
+        }
+
+        /**
+         * @param name The name of the group.
+         * @return The number of transactions of the group.
+         */
+        public int getCount(String name) {
+            int id = names.codeOf(name);
+            return id < 0 ? 0 : counts[id];
+        }
+
+        /**
+         * @return The total balance of each group, in order of first appearance.
+         */
+        public Map<String, Double> getTotals() {
+            Map<String, Double> map = new LinkedHashMap<>();
+            for (int id = 0; id < names.size(); id++) {
+                map.put(names.decode(id), Amounts.fromMinorUnits(totals[id]));
+            }
+            return map;
+        }
+
+        /**
+         * Calculates the running daily balances of a group the same way as
+         * {@link DailyTotalAggregator#getDailyBalances()}, between the earliest and last dates of the group.  Each day
+         * of the group is looked up in the daily totals, so the cost is the number of days of the group, not the
+         * number of daily totals of all the groups.
+         *
+         * @param name The name of the group.
+         * @return The running daily balances of the group, empty if the group has no transaction.
+         * @see #getAllDailyBalances()
+         */
+        public DailyBalanceSeries getDailyBalances(String name) {
+            int id = names.codeOf(name);
+            if (id < 0 || counts[id] == 0) {
+                return DailyBalanceSeries.empty();
+            }
+
+            // one slot for the day before the earliest date, then one per day up to the last date
+            int startDay = minEpochDays[id] - 1;
+            long[] groupTotals = new long[maxEpochDays[id] - startDay + 1];
+            for (int i = 1; i < groupTotals.length; i++) {
+                groupTotals[i] = dailyTotals.get(keyOf(id, startDay + i));
+            }
+            return DailyBalanceSeries.ofDailyTotals(startDay, groupTotals);
+        }
+
+        /**
+         * Calculates the running daily balances of every group the same way as {@link #getDailyBalances(String)}, in a
+         * single pass over the daily totals of all the groups.
+         *
+         * @return The running daily balances of each group, in order of first appearance.
+         */
+        public Map<String, DailyBalanceSeries> getAllDailyBalances() {
+            int size = names.size();
+            long[][] groupTotals = new long[size][];
+            for (int id = 0; id < size; id++) {
+                groupTotals[id] = counts[id] == 0 ? null : new long[maxEpochDays[id] - minEpochDays[id] + 2];
+            }
+            dailyTotals.forEach((key, value) -> {
+                int id = (int) (key >>> 32);
+                groupTotals[id][(int) key - minEpochDays[id] + 1] += value;
+            });
+
+            Map<String, DailyBalanceSeries> map = new LinkedHashMap<>();
+            for (int id = 0; id < size; id++) {
+                map.put(names.decode(id), groupTotals[id] == null ? DailyBalanceSeries.empty()
+                        : DailyBalanceSeries.ofDailyTotals(minEpochDays[id] - 1, groupTotals[id]));
+            }
+            return map;
+        }
+
+        /**
+         * Finds the groups spending the most, keeping only the top ones in a bounded heap rather than sorting all the
+         * groups.  Groups with the same spending are ordered by first appearance.
+         *
+         * @param n The maximum number of groups.
+         * @return The names of the groups with the largest spending, largest first, without the groups that spent
+         * nothing.
+         */
+        public List<String> getTopSpenders(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("Number of groups cannot be negative.");
+            }
+            if (n == 0) {
+                return Collections.emptyList();
+            }
+
+            // the head is the smallest of the top groups so far, replaced by any group spending more
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(n, size()) + 1, (a, b) -> {
+                int bySpending = Long.compare(spendings[a], spendings[b]);
+                return bySpending != 0 ? bySpending : Integer.compare(b, a);
+            });
+            for (int id = 0; id < names.size(); id++) {
+                if (spendings[id] > 0) {
+                    top.add(id);
+                    if (top.size() > n) {
+                        top.poll();
+                    }
+                }
+            }
+
+            String[] list = new String[top.size()];
+            for (int i = list.length - 1; i >= 0; i--) {
+                list[i] = names.decode(top.poll());
+            }
+            return Arrays.asList(list);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bench.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map of long keys to long values, backed by two primitive arrays with linear probing, so
+ * adding to a value neither boxes nor allocates an entry.  A missing key has the value 0.
+ *
+ * {@link Long#MIN_VALUE} marks the empty slots and cannot be used as a key.
+ *
+ * Created by dlee.
+ */
+final class LongLongHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    LongLongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Number of keys expected, so the map does not grow until then.
+     */
+    LongLongHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Adds to the value of a key, adding the key if missing.
+     *
+     * @param key   The key, not {@link Long#MIN_VALUE}.
+     * @param delta The amount added to the value.
+     */
+    void addTo(long key, long delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key cannot be Long.MIN_VALUE.");
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > threshold) {
+            rehash();
+        }
+    }
+
+    /**
+     * @return The value of the key, 0 if missing.
+     */
+    long get(long key) {
+        if (key == EMPTY) {
+            return 0;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Hands every key and its value to the consumer, in no particular order.
+     */
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        // spread the bits, as the keys are often sequential in their low bits
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int newSlot = slotOf(oldKeys[slot]);
+                while (keys[newSlot] != EMPTY) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+                keys[newSlot] = oldKeys[slot];
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new long[capacity];
+        mask = capacity - 1;
+        threshold = capacity * 3 / 4;
+    }
+
+    interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,248 @@
+package com.bench.aggregate;
+
+import com.bench.model.Amounts;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+import com.bench.model.TransactionColumns;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Calculates the balances of large sets of transactions in parallel on a fork-join pool.  The transactions are split
+ * into ranges, each task sums its range into partial per-day totals which are merged pairwise, then the running
+ * balances are tallied with a parallel prefix scan.
+ *
+ * All the sums are done in minor units with long arithmetic, which is associative, so the results are the same
+ * whatever the split and the scheduling of the tasks.
+ *
+ * Created by dlee.
+ */
+public class ParallelAggregator {
+    private static final int MIN_SPLIT_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+
+    public ParallelAggregator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelAggregator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param transactions Columns of transactions to calculate the total balance.
+     * @return The total balance, in minor units.
+     */
+    public long calculateTotalMinorUnits(TransactionColumns transactions) {
+        return pool.invoke(new TotalTask(new ColumnRows(transactions), 0, transactions.size(), splitSize(transactions.size())));
+    }
+
+    /**
+     * @param transactions List of transactions to calculate the total balance.
+     * @return The total balance, in minor units.
+     */
+    public long calculateTotalMinorUnits(List<Transaction> transactions) {
+        return pool.invoke(new TotalTask(new ListRows(transactions), 0, transactions.size(), splitSize(transactions.size())));
+    }
+
+    /**
+     * Calculates the running daily balances the same way as {@link DailyTotalAggregator#getDailyBalances()}.
+     *
+     * @param transactions Columns of transactions to calculate the running daily balances.
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries calculateDailyBalances(TransactionColumns transactions) {
+        return calculateDailyBalances(new ColumnRows(transactions), transactions.size());
+    }
+
+    /**
+     * Calculates the running daily balances the same way as {@link DailyTotalAggregator#getDailyBalances()}.
+     *
+     * @param transactions List of transactions to calculate the running daily balances.
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries calculateDailyBalances(List<Transaction> transactions) {
+        return calculateDailyBalances(new ListRows(transactions), transactions.size());
+    }
+
+    private DailyBalanceSeries calculateDailyBalances(Rows rows, int size) {
+        if (size == 0) {
+            return DailyBalanceSeries.empty();
+        }
+        int splitSize = splitSize(size);
+        long[] range = pool.invoke(new RangeTask(rows, 0, size, splitSize));
+
+        // one slot for the day before the earliest date, then one per day up to the last date
+        long startDay = range[0] - 1;
+        int days = Math.toIntExact(range[1] - startDay + 1);
+        long[] dailyTotals = pool.invoke(new DailyTotalsTask(rows, 0, size, splitSize, startDay, days));
+        pool.submit(() -> Arrays.parallelPrefix(dailyTotals, Long::sum)).join();
+        return DailyBalanceSeries.ofRunningBalances(startDay, dailyTotals);
+    }
+
+    private int splitSize(int size) {
+        return Math.max(MIN_SPLIT_SIZE, size / (pool.getParallelism() * 4));
+    }
+
+    /**
+     * Random access to the day and amount of transactions.
+     */
+    private interface Rows {
+        long epochDay(int index);
+
+        long minorUnits(int index);
+    }
+
+    private static class ColumnRows implements Rows {
+        private final TransactionColumns columns;
+
+        ColumnRows(TransactionColumns columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public long epochDay(int index) {
+            return columns.getEpochDay(index);
+        }
+
+        @Override
+        public long minorUnits(int index) {
+            return columns.getAmountMinorUnits(index);
+        }
+    }
+
+    private static class ListRows implements Rows {
+        private final List<Transaction> transactions;
+
+        ListRows(List<Transaction> transactions) {
+            this.transactions = transactions;
+        }
+
+        @Override
+        public long epochDay(int index) {
+            return transactions.get(index).getDate().toEpochDay();
+        }
+
+        @Override
+        public long minorUnits(int index) {
+            return Amounts.toMinorUnits(transactions.get(index).getAmount());
+        }
+    }
+
+    /**
+     * Sums the amounts of a range of rows.
+     */
+    private static class TotalTask extends RecursiveTask<Long> {
+        private final Rows rows;
+        private final int from;
+        private final int to;
+        private final int splitSize;
+
+        TotalTask(Rows rows, int from, int to, int splitSize) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.splitSize = splitSize;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= splitSize) {
+                long total = 0;
+                for (int i = from; i < to; i++) {
+                    total += rows.minorUnits(i);
+                }
+                return total;
+            }
+            int middle = (from + to) >>> 1;
+            TotalTask left = new TotalTask(rows, from, middle, splitSize);
+            left.fork();
+            long right = new TotalTask(rows, middle, to, splitSize).compute();
+            return left.join() + right;
+        }
+    }
+
+    /**
+     * Finds the earliest and last epoch days of a range of rows.
+     */
+    private static class RangeTask extends RecursiveTask<long[]> {
+        private final Rows rows;
+        private final int from;
+        private final int to;
+        private final int splitSize;
+
+        RangeTask(Rows rows, int from, int to, int splitSize) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.splitSize = splitSize;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= splitSize) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int i = from; i < to; i++) {
+                    long day = rows.epochDay(i);
+                    min = Math.min(min, day);
+                    max = Math.max(max, day);
+                }
+                return new long[]{min, max};
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(rows, from, middle, splitSize);
+            left.fork();
+            long[] right = new RangeTask(rows, middle, to, splitSize).compute();
+            long[] range = left.join();
+            range[0] = Math.min(range[0], right[0]);
+            range[1] = Math.max(range[1], right[1]);
+            return range;
+        }
+    }
+
+    /**
+     * Sums the amounts of a range of rows into partial per-day totals, merging the partials of the subranges.
+     */
+    private static class DailyTotalsTask extends RecursiveTask<long[]> {
+        private final Rows rows;
+        private final int from;
+        private final int to;
+        private final int splitSize;
+        private final long startDay;
+        private final int days;
+
+        DailyTotalsTask(Rows rows, int from, int to, int splitSize, long startDay, int days) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.splitSize = splitSize;
+            this.startDay = startDay;
+            this.days = days;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= splitSize) {
+                long[] totals = new long[days];
+                for (int i = from; i < to; i++) {
+                    totals[(int) (rows.epochDay(i) - startDay)] += rows.minorUnits(i);
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            DailyTotalsTask left = new DailyTotalsTask(rows, from, middle, splitSize, startDay, days);
+            left.fork();
+            long[] right = new DailyTotalsTask(rows, middle, to, splitSize, startDay, days).compute();
+            long[] totals = left.join();
+            for (int i = 0; i < days; i++) {
+                totals[i] += right[i];
+            }
+            return totals;
+        }
+    }
+}
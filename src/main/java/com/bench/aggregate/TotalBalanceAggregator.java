@@ -0,0 +1,34 @@
+package com.bench.aggregate;
+
+import com.bench.model.Transaction;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally sums the amount of every transaction it is fed, without keeping the transactions.
+ *
+ * Created by dlee.
+ */
+public class TotalBalanceAggregator implements Consumer<Transaction> {
+    private final DoubleSummaryStatistics amounts = new DoubleSummaryStatistics();
+
+    @Override
+    public void accept(Transaction transaction) {
+        amounts.accept(transaction.getAmount());
+    }
+
+    /**
+     * @return The total balance of the transactions fed so far.
+     */
+    public double getTotalBalance() {
+        return amounts.getSum();
+    }
+
+    /**
+     * @return The number of transactions fed so far.
+     */
+    public long getCount() {
+        return amounts.getCount();
+    }
+}
@@ -0,0 +1,72 @@
+package com.bench.batch;
+
+import java.util.Objects;
+
+/**
+ * An immutable account of a batch: its id, and the base URL of its transactions API.
+ *
+ * Created by dlee.
+ */
+public final class Account {
+    private final String id;
+    private final String baseUrl;
+
+    public Account(String id, String baseUrl) {
+        Objects.requireNonNull(id, "Cannot be NULL.");
+        Objects.requireNonNull(baseUrl, "Cannot be NULL.");
+        this.id = id;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Parses a line of an account list, {@code <id> <base URL>}, or only {@code <base URL>} to use it as the id too.
+     *
+     * @param line The line, without blank or comment lines.
+     * @return The account.
+     */
+    public static Account parse(String line) {
+        String[] fields = line.trim().split("\\s+");
+        if (fields.length == 1 && !fields[0].isEmpty()) {
+            return new Account(fields[0], fields[0]);
+        }
+        if (fields.length == 2) {
+            return new Account(fields[0], fields[1]);
+        }
+        throw new IllegalArgumentException("Expected an account as <id> <base URL>: " + line);
+    }
+
+    /**
+     * @return Whether a line of an account list holds no account, i.e. is blank or a {@code #} comment.
+     */
+    public static boolean isSkipped(String line) {
+        String trimmed = line.trim();
+        return trimmed.isEmpty() || trimmed.startsWith("#");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Account that = (Account) o;
+
+        if (!id.equals(that.id)) return false;
+        return baseUrl.equals(that.baseUrl);
+
+    }
+
+    @Override
+    public int hashCode() {
+        int result = id.hashCode();
+        result = 31 * result + baseUrl.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package com.bench.batch;
+
+import com.bench.model.DailyBalanceSeries;
+
+/**
+ * An immutable result of an account of a batch: its running daily balances, or the error that failed it.
+ *
+ * Created by dlee.
+ */
+public final class AccountResult {
+    private final Account account;
+    private final DailyBalanceSeries balances;
+    private final Throwable error;
+    private final long elapsedNanos;
+
+    private AccountResult(Account account, DailyBalanceSeries balances, Throwable error, long elapsedNanos) {
+        this.account = account;
+        this.balances = balances;
+        this.error = error;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    static AccountResult succeeded(Account account, DailyBalanceSeries balances, long elapsedNanos) {
+        return new AccountResult(account, balances, null, elapsedNanos);
+    }
+
+    static AccountResult failed(Account account, Throwable error, long elapsedNanos) {
+        return new AccountResult(account, null, error, elapsedNanos);
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return The running daily balances of the account, NULL if it failed.
+     */
+    public DailyBalanceSeries getBalances() {
+        return balances;
+    }
+
+    /**
+     * @return The error that failed the account, NULL if it succeeded.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return Time from starting the account to its result.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
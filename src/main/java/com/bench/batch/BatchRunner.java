@@ -0,0 +1,206 @@
+package com.bench.batch;
+
+import com.bench.cache.PageCache;
+import com.bench.metrics.TransactionMetrics;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.service.RequestPolicy;
+import com.bench.service.TransactionService;
+import com.bench.service.TransportProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Calculates the running daily balances of many accounts concurrently through one shared HTTP client, without a
+ * thread per account.
+ *
+ * The scheduling is fair: each account has at most a fixed number of page requests in flight, so an account with many
+ * pages gets the same share of the connections as a small one instead of starving it, and the accounts are started in
+ * list order as others finish, up to a fixed number at once.  The number of requests in flight is then at most the
+ * number of accounts at once times the requests per account.
+ *
+ * Created by dlee.
+ */
+public class BatchRunner {
+    public static final int DEFAULT_MAX_CONCURRENT_ACCOUNTS = 16;
+    public static final int DEFAULT_MAX_REQUESTS_PER_ACCOUNT = 4;
+
+    private final AsyncHttpClient httpClient;
+    private final ObjectMapper om;
+    private final int maxConcurrentAccounts;
+    private final int maxRequestsPerAccount;
+    private RequestPolicy requestPolicy;
+    private PageCache pageCache;
+    private TransactionMetrics metrics;
+
+    public BatchRunner(AsyncHttpClient httpClient, ObjectMapper om) {
+        this(httpClient, om, DEFAULT_MAX_CONCURRENT_ACCOUNTS, DEFAULT_MAX_REQUESTS_PER_ACCOUNT);
+    }
+
+    /**
+     * @param maxConcurrentAccounts Maximum number of accounts retrieved at once.
+     * @param maxRequestsPerAccount Maximum number of page requests in flight for an account.
+     */
+    public BatchRunner(AsyncHttpClient httpClient, ObjectMapper om, int maxConcurrentAccounts, int maxRequestsPerAccount) {
+        if (maxConcurrentAccounts < 1 || maxRequestsPerAccount < 1) {
+            throw new IllegalArgumentException("Max concurrent accounts and requests per account must be at least 1.");
+        }
+        this.httpClient = httpClient;
+        this.om = om;
+        this.maxConcurrentAccounts = maxConcurrentAccounts;
+        this.maxRequestsPerAccount = maxRequestsPerAccount;
+    }
+
+    /**
+     * Creates an HTTP client sized for a batch with the default {@link TransportProfile}.
+     *
+     * @param maxConcurrentAccounts Maximum number of accounts retrieved at once.
+     * @param maxRequestsPerAccount Maximum number of page requests in flight for an account.
+     * @return The client, to close once the batch is done.
+     * @see #createHttpClient(int, int, TransportProfile, TransactionMetrics)
+     */
+    public static AsyncHttpClient createHttpClient(int maxConcurrentAccounts, int maxRequestsPerAccount) {
+        return createHttpClient(maxConcurrentAccounts, maxRequestsPerAccount, new TransportProfile(), null);
+    }
+
+    /**
+     * Creates an HTTP client sized for a batch: connections are kept alive and pooled for the pages of all the
+     * accounts, and the connection limit of a host leaves room for the requests in flight and their hedges.  The client
+     * fails a request past its limits rather than queueing it, so the limit only guards against a runaway batch; the
+     * scheduling of the batch is what bounds the requests.  There is no limit across the hosts, as the idle connections
+     * to the hosts of the accounts already done count towards it until they time out.
+     *
+     * @param maxConcurrentAccounts Maximum number of accounts retrieved at once.
+     * @param maxRequestsPerAccount Maximum number of page requests in flight for an account.
+     * @param transport             Profile of the client, its connection limit of a host replaced by the one of the
+     *                              batch.
+     * @param metrics               Metrics recording the bytes read from the connections, NULL to record nothing.
+     * @return The client, to close once the batch is done.
+     */
+    public static AsyncHttpClient createHttpClient(int maxConcurrentAccounts, int maxRequestsPerAccount,
+                                                   TransportProfile transport, TransactionMetrics metrics) {
+        int maxConnections = 2 * maxConcurrentAccounts * maxRequestsPerAccount;
+        return new DefaultAsyncHttpClient(transport.newConfig(metrics)
+                .setMaxConnectionsPerHost(maxConnections)
+                .build());
+    }
+
+    /**
+     * @param requestPolicy Policy of the page requests of every account, NULL for the default policy.
+     */
+    public void setRequestPolicy(RequestPolicy requestPolicy) {
+        this.requestPolicy = requestPolicy;
+    }
+
+    /**
+     * @param pageCache Cache of the pages of every account, NULL to bypass the cache.
+     */
+    public void setPageCache(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * @param metrics Metrics recording the pages of every account, NULL to record nothing.
+     */
+    public void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Calculates the running daily balances of the accounts, handing the result of each account to the listener as
+     * soon as it is done.  A failed account does not stop the others.
+     *
+     * @param accounts The accounts.
+     * @param listener Receives the result of each account, from one thread at a time.
+     * @return Completed once the listener received the result of every account, or exceptionally if the listener
+     * failed, in which case no more account is started.
+     */
+    public CompletableFuture<Void> run(List<Account> accounts, Consumer<? super AccountResult> listener) {
+        return new Batch(accounts, listener).start();
+    }
+
+    private TransactionService serviceOf(Account account) {
+        TransactionService ts = new TransactionService(httpClient, om, maxRequestsPerAccount);
+        ts.setBaseUrl(account.getBaseUrl());
+        if (requestPolicy != null) {
+            ts.setRequestPolicy(requestPolicy);
+        }
+        ts.setPageCache(pageCache);
+        ts.setMetrics(metrics);
+        return ts;
+    }
+
+    /**
+     * A run of the accounts, starting the next account whenever one finishes.
+     */
+    private final class Batch {
+        private final List<Account> accounts;
+        private final Consumer<? super AccountResult> listener;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+
+        Batch(List<Account> accounts, Consumer<? super AccountResult> listener) {
+            this.accounts = accounts;
+            this.listener = listener;
+            this.remaining = new AtomicInteger(accounts.size());
+        }
+
+        CompletableFuture<Void> start() {
+            if (accounts.isEmpty()) {
+                done.complete(null);
+            }
+            for (int i = 0; i < Math.min(maxConcurrentAccounts, accounts.size()); i++) {
+                startNext();
+            }
+            return done;
+        }
+
+        private void startNext() {
+            int index = next.getAndIncrement();
+            if (index >= accounts.size() || done.isDone()) {
+                return;
+            }
+            Account account = accounts.get(index);
+            long start = System.nanoTime();
+            CompletableFuture<DailyBalanceSeries> balances;
+            try {
+                balances = serviceOf(account).calculateDailyBalancesAsync();
+            } catch (RuntimeException e) {
+                balances = new CompletableFuture<>();
+                balances.completeExceptionally(e);
+            }
+            // never finish on the thread starting the account, so accounts done at once don't nest on its stack
+            balances.whenCompleteAsync((series, error) -> finish(account, start, series, error));
+        }
+
+        private void finish(Account account, long start, DailyBalanceSeries balances, Throwable error) {
+            long elapsed = System.nanoTime() - start;
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            AccountResult result = error == null
+                    ? AccountResult.succeeded(account, balances, elapsed)
+                    : AccountResult.failed(account, error, elapsed);
+            try {
+                synchronized (this) {
+                    listener.accept(result);
+                }
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+                return;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(null);
+            } else {
+                startNext();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bench.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Helps write files so that a reader sees either the previous content or the complete new content, never a partially
+ * written file, even if the process crashes in the middle of a write.
+ *
+ * Created by dlee.
+ */
+public final class AtomicFiles {
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes the content to a temporary file next to the target, forces it to the disk, then moves it over the target.
+     *
+     * @param target The file to replace.
+     * @param writer Writes the content.
+     * @throws IOException If the content could not be written.
+     */
+    public static void write(Path target, ContentWriter writer) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                writer.write(out);
+                out.flush();
+                // without it, a crash after the move can leave the target renamed but still empty
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the content of a file.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
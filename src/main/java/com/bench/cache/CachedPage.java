@@ -0,0 +1,52 @@
+package com.bench.cache;
+
+/**
+ * An immutable cached page body along with the validators returned with it.
+ *
+ * Created by dlee.
+ */
+public final class CachedPage {
+    private final byte[] body;
+    private final String etag;
+    private final String lastModified;
+    private final long storedAt;
+
+    /**
+     * @param body         The raw page body.
+     * @param etag         The ETag header of the response, NULL if none.
+     * @param lastModified The Last-Modified header of the response, NULL if none.
+     * @param storedAt     When the page was stored or last revalidated, in epoch milliseconds.
+     */
+    public CachedPage(byte[] body, String etag, String lastModified, long storedAt) {
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.storedAt = storedAt;
+    }
+
+    /**
+     * @return The raw page body.  The array is shared and must not be modified.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    /**
+     * @return If the page can be revalidated with a conditional request.
+     */
+    public boolean hasValidator() {
+        return etag != null || lastModified != null;
+    }
+}
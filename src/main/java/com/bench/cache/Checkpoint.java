@@ -0,0 +1,82 @@
+package com.bench.cache;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.PageSummary;
+
+/**
+ * An immutable record of how far a feed of transactions was consumed, with the balances calculated up to that point,
+ * so a later run can fetch only the pages past it and extend the balances.
+ *
+ * Created by dlee.
+ */
+public final class Checkpoint {
+    private final String feed;
+    private final int pageSize;
+    private final int lastPage;
+    private final int totalCount;
+    private final long runningTotal;
+    private final DailyBalanceSeries dailyBalances;
+
+    /**
+     * @param feed          Identifies the feed, e.g. the endpoint of its first page.
+     * @param pageSize      The number of transactions of a full page.
+     * @param lastPage      The last page fully consumed.
+     * @param totalCount    The total count seen when the checkpoint was taken.
+     * @param runningTotal  The total balance of the pages consumed, in minor units.
+     * @param dailyBalances The running daily balances of the pages consumed.
+     */
+    public Checkpoint(String feed, int pageSize, int lastPage, int totalCount, long runningTotal, DailyBalanceSeries dailyBalances) {
+        this.feed = feed;
+        this.pageSize = pageSize;
+        this.lastPage = lastPage;
+        this.totalCount = totalCount;
+        this.runningTotal = runningTotal;
+        this.dailyBalances = dailyBalances;
+    }
+
+    public String getFeed() {
+        return feed;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getLastPage() {
+        return lastPage;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public long getRunningTotal() {
+        return runningTotal;
+    }
+
+    /**
+     * @return The running balance of the last day consumed, in minor units.
+     */
+    public long getLastDayBalance() {
+        return dailyBalances.getLastBalanceMinorUnits();
+    }
+
+    public DailyBalanceSeries getDailyBalances() {
+        return dailyBalances;
+    }
+
+    /**
+     * Determines if the feed can be resumed from this checkpoint.  It relies on the feed being append only: the pages
+     * must keep their size and the total count cannot go below the count seen at the checkpoint.
+     *
+     * @param feed      The feed to resume.
+     * @param firstPage The summary of the current first page of the feed.
+     * @return If the pages past the checkpoint can be consumed to extend its balances.
+     */
+    public boolean canResume(String feed, PageSummary firstPage) {
+        return this.feed.equals(feed)
+                && firstPage.getTransactionCount() == pageSize
+                && firstPage.getTotalCount() >= totalCount
+                && firstPage.getTotalCount() >= (long) lastPage * pageSize;
+    }
+}
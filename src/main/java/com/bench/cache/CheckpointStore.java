@@ -0,0 +1,88 @@
+package com.bench.cache;
+
+import com.bench.model.DailyBalanceSeries;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Persists a checkpoint to a file in a compact binary form.  The file is replaced atomically, so a crash leaves the
+ * previous checkpoint in place.
+ *
+ * Created by dlee.
+ */
+public class CheckpointStore {
+    private static final int MAGIC = 0x42434b31;
+
+    private final Path file;
+
+    public CheckpointStore(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+    }
+
+    /**
+     * @return The saved checkpoint, NULL if there is none or it is unreadable.
+     */
+    public Checkpoint load() {
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            String feed = in.readUTF();
+            int pageSize = in.readInt();
+            int lastPage = in.readInt();
+            int totalCount = in.readInt();
+            long runningTotal = in.readLong();
+            long lastDayBalance = in.readLong();
+            long firstEpochDay = in.readLong();
+            long[] balances = new long[in.readInt()];
+            for (int i = 0; i < balances.length; i++) {
+                balances[i] = in.readLong();
+            }
+
+            Checkpoint checkpoint = new Checkpoint(feed, pageSize, lastPage, totalCount, runningTotal,
+                    DailyBalanceSeries.ofRunningBalances(firstEpochDay, balances));
+            // the running total and the balance of the last day always agree, unless the file is damaged
+            return checkpoint.getLastDayBalance() == lastDayBalance && runningTotal == lastDayBalance ? checkpoint : null;
+        } catch (IOException | RuntimeException e) {
+            return null;    // missing or damaged, the balances are rebuilt
+        }
+    }
+
+    /**
+     * @param checkpoint The checkpoint replacing the saved one.
+     * @throws IOException If the checkpoint could not be written.
+     */
+    public void save(Checkpoint checkpoint) throws IOException {
+        DailyBalanceSeries balances = checkpoint.getDailyBalances();
+        AtomicFiles.write(file, out -> {
+            out.writeInt(MAGIC);
+            out.writeUTF(checkpoint.getFeed());
+            out.writeInt(checkpoint.getPageSize());
+            out.writeInt(checkpoint.getLastPage());
+            out.writeInt(checkpoint.getTotalCount());
+            out.writeLong(checkpoint.getRunningTotal());
+            out.writeLong(checkpoint.getLastDayBalance());
+            out.writeLong(balances.isEmpty() ? 0 : balances.getEpochDay(0));
+            out.writeInt(balances.size());
+            for (int i = 0; i < balances.size(); i++) {
+                out.writeLong(balances.getBalanceMinorUnits(i));
+            }
+        });
+    }
+
+    /**
+     * Removes the saved checkpoint, so the next run rebuilds the balances from the first page.
+     *
+     * @throws IOException If the checkpoint could not be removed.
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
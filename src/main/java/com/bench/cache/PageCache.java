@@ -0,0 +1,219 @@
+package com.bench.cache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent cache of raw page bodies on the local disk, one file per page URL.  Each entry keeps the ETag and
+ * Last-Modified validators of the response so the page can be revalidated with a conditional request.
+ *
+ * <ul>
+ * <li>Entries are written atomically and carry a checksum, so a crash or a damaged file is seen as a miss rather than
+ * a corrupt page.</li>
+ * <li>When the entries exceed the maximum size, the least recently used entries are evicted.</li>
+ * </ul>
+ *
+ * Created by dlee.
+ */
+public class PageCache {
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final int MAGIC = 0x42504331;
+    private static final String ENTRY_SUFFIX = ".page";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final AtomicLong size = new AtomicLong();
+
+    public PageCache(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_BYTES, 0);
+    }
+
+    /**
+     * @param directory    Directory of the entries, created if missing.
+     * @param maxBytes     Maximum total size of the entries.
+     * @param maxAgeMillis How long an entry can be used without revalidating it.  0 always revalidates.
+     * @throws IOException If the directory cannot be read.
+     */
+    public PageCache(Path directory, long maxBytes, long maxAgeMillis) throws IOException {
+        if (maxBytes < 0 || maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Max bytes and max age cannot be negative.");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+
+        // clean up the temporary files left by a crash, and tally the size of the entries
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(AtomicFiles.TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(ENTRY_SUFFIX)) {
+                    size.addAndGet(Files.size(file));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param url The URL of the page.
+     * @return The cached page, NULL if the page is not cached or its entry is unreadable.
+     */
+    public CachedPage get(String url) {
+        Path file = entryFile(url);
+        try (InputStream is = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != MAGIC || !url.equals(in.readUTF())) {
+                return null;
+            }
+            long storedAt = in.readLong();
+            String etag = in.readBoolean() ? in.readUTF() : null;
+            String lastModified = in.readBoolean() ? in.readUTF() : null;
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            if (in.readLong() != checksum(body)) {
+                throw new IOException("Checksum mismatch.");
+            }
+
+            // track the use for the eviction of the least recently used entries
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new CachedPage(body, etag, lastModified, storedAt);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            remove(file);
+            return null;
+        }
+    }
+
+    /**
+     * @param page A cached page.
+     * @return If the page can be used without revalidating it.
+     */
+    public boolean isFresh(CachedPage page) {
+        return System.currentTimeMillis() - page.getStoredAt() < maxAgeMillis;
+    }
+
+    /**
+     * @return If cached pages are ever used without revalidating them.
+     */
+    public boolean hasMaxAge() {
+        return maxAgeMillis > 0;
+    }
+
+    /**
+     * Stores a page, replacing any previous entry of the URL, then evicts entries if the cache is over its size.
+     *
+     * @param url  The URL of the page.
+     * @param page The page to store.
+     * @throws IOException If the entry could not be written.
+     */
+    public void put(String url, CachedPage page) throws IOException {
+        Path file = entryFile(url);
+        // the replaced entry is measured and the new one written under the lock, so concurrent puts and removes of
+        // the same file don't count it twice
+        synchronized (this) {
+            long previousSize = Files.exists(file) ? Files.size(file) : 0;
+            AtomicFiles.write(file, out -> {
+                out.writeInt(MAGIC);
+                out.writeUTF(url);
+                out.writeLong(page.getStoredAt());
+                writeOptionalUTF(out, page.getEtag());
+                writeOptionalUTF(out, page.getLastModified());
+                out.writeInt(page.getBody().length);
+                out.write(page.getBody());
+                out.writeLong(checksum(page.getBody()));
+            });
+            size.addAndGet(Files.size(file) - previousSize);
+
+            if (size.get() > maxBytes) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * @return The total size of the entries, in bytes.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    private synchronized void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            files.forEach(entries::add);
+        }
+        entries.sort(Comparator.comparing(PageCache::lastUsed));
+
+        for (Path entry : entries) {
+            if (size.get() <= maxBytes) {
+                break;
+            }
+            remove(entry);
+        }
+    }
+
+    private synchronized void remove(Path file) {
+        try {
+            long fileSize = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                size.addAndGet(-fileSize);
+            }
+        } catch (IOException e) {
+            // already removed by another thread
+        }
+    }
+
+    private Path entryFile(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + ENTRY_SUFFIX.length());
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return directory.resolve(name.append(ENTRY_SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available.", e);
+        }
+    }
+
+    private static FileTime lastUsed(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long checksum(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        return crc.getValue();
+    }
+
+    private static void writeOptionalUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
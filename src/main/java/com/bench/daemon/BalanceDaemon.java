@@ -0,0 +1,287 @@
+package com.bench.daemon;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.report.ReportFormat;
+import com.bench.report.ReportWriter;
+import com.bench.service.TransactionService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the running daily balances in memory and serves them over HTTP on the loopback address, refreshing them in the
+ * background on a fixed schedule, so repeated queries neither start a JVM nor retrieve the transactions again.
+ *
+ * Each refresh calls {@link TransactionService#syncDailyBalances()}, so with a checkpoint store only the pages past
+ * the checkpoint are requested, then publishes the new balances at once.  The balances are an immutable
+ * {@link DailyBalanceSeries}, so the queries read them without locking and a failed refresh leaves the previous
+ * balances served.
+ *
+ * The endpoints, answering JSON:
+ * <ul>
+ * <li>{@code GET /total} the total balance, the last date and when the balances were refreshed.</li>
+ * <li>{@code GET /balance?date=<yyyy-mm-dd>} the running balance as of the end of the day.</li>
+ * <li>{@code GET /balance?from=<yyyy-mm-dd>&to=<yyyy-mm-dd>} the running daily balances of the days of the range, as
+ * the JSON report of {@link ReportWriter}.</li>
+ * </ul>
+ * They answer 503 until the first refresh succeeds.
+ *
+ * Created by dlee.
+ */
+public class BalanceDaemon implements AutoCloseable {
+    public static final int DEFAULT_PORT = 9090;
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 60000;
+
+    private static final int HANDLER_THREADS = 4;
+    private static final int REPORT_BUFFER_SIZE = 8 * 1024;
+    // one heap buffer per handler thread, so a range query allocates no direct memory
+    private static final ThreadLocal<ByteBuffer> REPORT_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(REPORT_BUFFER_SIZE));
+
+    private final TransactionService service;
+    private final long refreshIntervalMillis;
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+    private volatile Exception lastError;
+    private volatile HttpServer server;
+    private volatile ExecutorService handlers;
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * @param service               The service retrieving the balances, only used by the refreshes.
+     * @param refreshIntervalMillis Delay between the end of a refresh and the start of the next.
+     */
+    public BalanceDaemon(TransactionService service, long refreshIntervalMillis) {
+        if (refreshIntervalMillis < 1) {
+            throw new IllegalArgumentException("Refresh interval must be at least 1.");
+        }
+        this.service = service;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * Starts serving on a port of the loopback address and schedules the refreshes, the first one right away.
+     *
+     * @param port The port, 0 for an ephemeral port.
+     * @throws IOException If the server cannot be bound.
+     */
+    public void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Daemon is already started.");
+        }
+        handlers = Executors.newFixedThreadPool(HANDLER_THREADS, r -> newThread(r, "balance-daemon-handler"));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/", this::serve);
+        server.start();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> newThread(r, "balance-daemon-refresh"));
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Refreshes the balances now, one refresh at a time.
+     *
+     * @return The balances refreshed.
+     * @throws Exception If the balances could not be retrieved, the previous balances being still served.
+     */
+    public synchronized DailyBalanceSeries refresh() throws Exception {
+        try {
+            DailyBalanceSeries balances = service.syncDailyBalances();
+            snapshot = new Snapshot(balances, System.currentTimeMillis());
+            lastError = null;
+            return balances;
+        } catch (Exception e) {
+            lastError = e;
+            throw e;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            // kept as the last error, retried on the next refresh
+        }
+    }
+
+    /**
+     * @return The balances served, NULL until the first refresh succeeds.
+     */
+    public DailyBalanceSeries getBalances() {
+        Snapshot current = snapshot;
+        return current == null ? null : current.balances;
+    }
+
+    /**
+     * @return The error of the last refresh, NULL if it succeeded.
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    /**
+     * @return The base URL of the daemon, e.g. {@code http://127.0.0.1:9090}.
+     */
+    public String getBaseUrl() {
+        if (server == null) {
+            throw new IllegalStateException("Daemon is not started.");
+        }
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Waits until the daemon is closed.
+     */
+    public void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    /**
+     * Stops serving and refreshing, dropping the queries in flight.  Only the first call has an effect, e.g. when both a
+     * shutdown hook and the code that started the daemon close it.
+     */
+    @Override
+    public void close() {
+        if (!closing.compareAndSet(false, true)) {
+            return;
+        }
+        if (server != null) {
+            server.stop(0);
+            handlers.shutdownNow();
+            scheduler.shutdownNow();
+            server = null;
+        }
+        closed.countDown();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (!"/total".equals(path) && !"/balance".equals(path)) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            Snapshot current = snapshot;
+            if (current == null) {
+                send(exchange, 503, error("Balances are not retrieved yet."));
+                return;
+            }
+            if ("/total".equals(path)) {
+                send(exchange, 200, total(current));
+                return;
+            }
+
+            Map<String, String> query = queryOf(exchange.getRequestURI().getRawQuery());
+            try {
+                if (query.containsKey("date")) {
+                    send(exchange, 200, balanceOn(current.balances, LocalDate.parse(query.get("date"))));
+                } else if (query.containsKey("from") && query.containsKey("to")) {
+                    send(exchange, 200, balancesBetween(current.balances, LocalDate.parse(query.get("from")), LocalDate.parse(query.get("to"))));
+                } else {
+                    send(exchange, 400, error("Expected a date, or a from and to date."));
+                }
+            } catch (DateTimeParseException e) {
+                send(exchange, 400, error("Expected a date as yyyy-mm-dd: " + e.getParsedString()));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] total(Snapshot snapshot) {
+        DailyBalanceSeries balances = snapshot.balances;
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"totalBalance\":").append(amount(balances.getLastBalanceMinorUnits()))
+                .append(",\"lastDate\":").append(balances.isEmpty() ? "null" : "\"" + balances.getLastDate() + "\"")
+                .append(",\"refreshedAt\":\"").append(Instant.ofEpochMilli(snapshot.refreshedAtMillis)).append("\"}\n");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] balanceOn(DailyBalanceSeries balances, LocalDate date) {
+        return ("{\"date\":\"" + date + "\",\"balance\":" + amount(balances.balanceMinorUnitsOn(date)) + "}\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] balancesBetween(DailyBalanceSeries balances, LocalDate from, LocalDate to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportWriter writer = new ReportWriter(Channels.newChannel(out), ReportFormat.JSON, REPORT_BUFFER.get())) {
+            writer.write(balances.between(from, to));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] error(String message) {
+        return ("{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String amount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, 2).toPlainString();
+    }
+
+    private static Map<String, String> queryOf(String rawQuery) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static Thread newThread(Runnable r, String name) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * The balances of a refresh, published at once.
+     */
+    private static final class Snapshot {
+        private final DailyBalanceSeries balances;
+        private final long refreshedAtMillis;
+
+        Snapshot(DailyBalanceSeries balances, long refreshedAtMillis) {
+            this.balances = balances;
+            this.refreshedAtMillis = refreshedAtMillis;
+        }
+    }
+}
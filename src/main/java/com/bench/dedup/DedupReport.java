@@ -0,0 +1,43 @@
+package com.bench.dedup;
+
+/**
+ * The counts of a deduplicated retrieval, against the number of transactions the feed announced.
+ *
+ * Created by dlee.
+ */
+public class DedupReport {
+    private final long expectedCount;
+    private final long uniqueCount;
+    private final long duplicateCount;
+
+    public DedupReport(long expectedCount, long uniqueCount, long duplicateCount) {
+        this.expectedCount = expectedCount;
+        this.uniqueCount = uniqueCount;
+        this.duplicateCount = duplicateCount;
+    }
+
+    public long getExpectedCount() {
+        return expectedCount;
+    }
+
+    public long getUniqueCount() {
+        return uniqueCount;
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * @return Whether the number of unique transactions differs from the expected count, i.e. transactions were
+     * missed, or the feed changed during the retrieval.
+     */
+    public boolean isCountMismatch() {
+        return uniqueCount != expectedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "expected=" + expectedCount + " unique=" + uniqueCount + " duplicates=" + duplicateCount;
+    }
+}
@@ -0,0 +1,15 @@
+package com.bench.dedup;
+
+/**
+ * A set of 64-bit fingerprints, telling whether a fingerprint was seen before.
+ *
+ * Created by dlee.
+ */
+public interface FingerprintSet {
+
+    /**
+     * @param fingerprint The fingerprint.
+     * @return TRUE if the fingerprint was not seen before and is now added, FALSE if it was seen before.
+     */
+    boolean add(long fingerprint);
+}
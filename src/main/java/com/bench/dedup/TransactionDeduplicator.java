@@ -0,0 +1,111 @@
+package com.bench.dedup;
+
+import com.bench.model.Amounts;
+import com.bench.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Hands the transactions it is fed to a consumer, rejecting the repeats of a transaction already fed, e.g. the
+ * transactions shifting onto the next page while the pages are retrieved.  Each transaction is reduced to a 64-bit
+ * fingerprint of its date, amount, ledger and company, computed without allocating, and only the fingerprints are kept.
+ *
+ * The transactions have no id, so two genuine transactions with the same values are taken as repeats, and two
+ * different transactions are taken as repeats when their fingerprints collide, which is unlikely below billions of
+ * transactions.
+ *
+ * Created by dlee.
+ */
+public class TransactionDeduplicator implements Consumer<Transaction> {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_MARKER = 0x9e3779b97f4a7c15L;
+
+    private final Consumer<? super Transaction> consumer;
+    private final FingerprintSet fingerprints;
+    private long uniqueCount;
+    private long duplicateCount;
+
+    /**
+     * @param consumer     Receives the first occurrence of each transaction.
+     * @param fingerprints The fingerprints of the transactions seen, e.g. a {@link LongHashSet}.
+     */
+    public TransactionDeduplicator(Consumer<? super Transaction> consumer, FingerprintSet fingerprints) {
+        this.consumer = consumer;
+        this.fingerprints = fingerprints;
+    }
+
+    @Override
+    public void accept(Transaction transaction) {
+        if (fingerprints.add(fingerprint(transaction))) {
+            uniqueCount++;
+            consumer.accept(transaction);
+        } else {
+            duplicateCount++;
+        }
+    }
+
+    /**
+     * @return The number of transactions handed to the consumer.
+     */
+    public long getUniqueCount() {
+        return uniqueCount;
+    }
+
+    /**
+     * @return The number of transactions rejected as repeats.
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * @param expectedCount The number of transactions the feed announced, e.g. its total count.
+     * @return The counts of the transactions fed so far, against the expected count.
+     */
+    public DedupReport report(long expectedCount) {
+        return new DedupReport(expectedCount, uniqueCount, duplicateCount);
+    }
+
+    /**
+     * @param transaction The transaction.
+     * @return The fingerprint of the date, the amount in minor units, the ledger and the company of the transaction.
+     */
+    public static long fingerprint(Transaction transaction) {
+        LocalDate date = transaction.getDate();
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, date == null ? NULL_MARKER : date.toEpochDay());
+        hash = mix(hash, Amounts.toMinorUnits(transaction.getAmount()));
+        hash = mix(hash, transaction.getLedger());
+        hash = mix(hash, transaction.getCompany());
+        return finish(hash);
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, NULL_MARKER);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = mix(hash, value.charAt(i));
+        }
+        // the length ends the value, so "ab", "c" and "a", "bc" differ
+        return mix(hash, value.length());
+    }
+
+    /**
+     * Spreads the bits of the hash over the whole fingerprint, as the finalizer of MurmurHash3.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,220 @@
+package com.bench.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms of the retrieval of the transactions: the round trip, bytes, parse time and transactions of
+ * each page, the bytes transferred, the retries and hedges, the duplicates rejected, and the aggregation time.
+ * Recording does not allocate, so the metrics can stay enabled; a service without metrics skips the recording, and
+ * even the clock reads, entirely.
+ *
+ * Created by dlee.
+ */
+public class TransactionMetrics implements TransactionMetricsMBean {
+    public static final String DEFAULT_OBJECT_NAME = "com.bench:type=TransactionMetrics";
+
+    private static final double NANOS_PER_MILLI = 1000000d;
+
+    private final Histogram roundTrip = new Histogram();
+    private final Histogram responseBytes = new Histogram();
+    private final Histogram parse = new Histogram();
+    private final Histogram transactionsPerPage = new Histogram();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder transferBytes = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder countMismatches = new LongAdder();
+    private final LongAdder aggregationNanos = new LongAdder();
+
+    /**
+     * @param nanos Time from sending the request of a page to receiving its response.
+     */
+    public void recordRoundTrip(long nanos) {
+        roundTrip.record(nanos);
+    }
+
+    /**
+     * @param bytes Size of the body of a page received from the API, once inflated.
+     */
+    public void recordResponseBytes(long bytes) {
+        responseBytes.record(bytes);
+    }
+
+    /**
+     * @param bytes Number of bytes read from a connection, before decoding and inflating.
+     */
+    public void recordTransferBytes(long bytes) {
+        transferBytes.add(bytes);
+    }
+
+    /**
+     * @param nanos        Time to parse a page, including handing its transactions to their consumer.
+     * @param transactions Number of transactions of the page.
+     */
+    public void recordParse(long nanos, int transactions) {
+        parse.record(nanos);
+        transactionsPerPage.record(transactions);
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * @param count Number of transactions rejected as repeats of a retrieval.
+     */
+    public void recordDuplicates(long count) {
+        duplicates.add(count);
+    }
+
+    /**
+     * Records a retrieval whose number of unique transactions differs from the total count of the feed.
+     */
+    public void recordCountMismatch() {
+        countMismatches.increment();
+    }
+
+    /**
+     * @param nanos Time to calculate a total or balances from transactions already retrieved.
+     */
+    public void recordAggregation(long nanos) {
+        aggregationNanos.add(nanos);
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server under {@link #DEFAULT_OBJECT_NAME}.
+     *
+     * @return The name registered.
+     * @throws JMException If the metrics cannot be registered, e.g. the name is already registered.
+     */
+    public ObjectName register() throws JMException {
+        return register(ManagementFactory.getPlatformMBeanServer(), new ObjectName(DEFAULT_OBJECT_NAME));
+    }
+
+    /**
+     * @return The name registered.
+     * @throws JMException If the metrics cannot be registered, e.g. the name is already registered.
+     */
+    public ObjectName register(MBeanServer server, ObjectName name) throws JMException {
+        return server.registerMBean(this, name).getObjectName();
+    }
+
+    @Override
+    public long getPages() {
+        return transactionsPerPage.getCount();
+    }
+
+    @Override
+    public long getResponseBytes() {
+        return responseBytes.getSum();
+    }
+
+    @Override
+    public long getTransferBytes() {
+        return transferBytes.sum();
+    }
+
+    @Override
+    public long getTransactions() {
+        return transactionsPerPage.getSum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    @Override
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    @Override
+    public long getCountMismatches() {
+        return countMismatches.sum();
+    }
+
+    @Override
+    public double getRoundTripMeanMillis() {
+        return roundTrip.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getRoundTripP50Millis() {
+        return roundTrip.getValueAtPercentile(0.5) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getRoundTripP99Millis() {
+        return roundTrip.getValueAtPercentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getRoundTripMaxMillis() {
+        return roundTrip.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getParseP50Millis() {
+        return parse.getValueAtPercentile(0.5) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getParseP99Millis() {
+        return parse.getValueAtPercentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getResponseBytesMean() {
+        return responseBytes.getMean();
+    }
+
+    @Override
+    public double getTransactionsPerPageMean() {
+        return transactionsPerPage.getMean();
+    }
+
+    @Override
+    public double getAggregationMillis() {
+        return aggregationNanos.sum() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        roundTrip.reset();
+        responseBytes.reset();
+        parse.reset();
+        transactionsPerPage.reset();
+        retries.reset();
+        hedges.reset();
+        transferBytes.reset();
+        duplicates.reset();
+        countMismatches.reset();
+        aggregationNanos.reset();
+    }
+
+    /**
+     * @return A one line summary of the metrics.
+     */
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "pages=%d transactions=%d bytes=%d retries=%d hedges=%d duplicates=%d roundTrip(ms) p50=%.2f p99=%.2f max=%.2f parse(ms) p50=%.3f p99=%.3f aggregation(ms)=%.2f transferBytes=%d",
+                getPages(), getTransactions(), getResponseBytes(), getRetries(), getHedges(), getDuplicates(),
+                getRoundTripP50Millis(), getRoundTripP99Millis(), getRoundTripMaxMillis(),
+                getParseP50Millis(), getParseP99Millis(), getAggregationMillis(), getTransferBytes());
+    }
+}
@@ -0,0 +1,54 @@
+package com.bench.metrics;
+
+/**
+ * JMX view of {@link TransactionMetrics}.  The durations are in milliseconds.
+ *
+ * Created by dlee.
+ */
+public interface TransactionMetricsMBean {
+
+    long getPages();
+
+    /**
+     * @return The size of the bodies of the pages, once inflated.
+     */
+    long getResponseBytes();
+
+    /**
+     * @return The number of bytes read from the connections, i.e. the transfer size of the responses, compressed.
+     */
+    long getTransferBytes();
+
+    long getTransactions();
+
+    long getRetries();
+
+    long getHedges();
+
+    long getDuplicates();
+
+    long getCountMismatches();
+
+    double getRoundTripMeanMillis();
+
+    double getRoundTripP50Millis();
+
+    double getRoundTripP99Millis();
+
+    double getRoundTripMaxMillis();
+
+    double getParseP50Millis();
+
+    double getParseP99Millis();
+
+    double getResponseBytesMean();
+
+    double getTransactionsPerPageMean();
+
+    double getAggregationMillis();
+
+    /**
+     * Clears all the metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,30 @@
+package com.bench.model;
+
+/**
+ * Helps convert transaction amounts to and from fixed-point minor units (cents), so sums can be calculated exactly
+ * with long arithmetic.  Amounts are expected to have at most two decimals.
+ *
+ * Created by dlee.
+ */
+public final class Amounts {
+    public static final int MINOR_UNITS_PER_UNIT = 100;
+
+    private Amounts() {
+    }
+
+    /**
+     * @param amount The amount, e.g. -100.55.
+     * @return The amount in minor units, e.g. -10055.
+     */
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_UNITS_PER_UNIT);
+    }
+
+    /**
+     * @param minorUnits The amount in minor units, e.g. -10055.
+     * @return The amount, e.g. -100.55.
+     */
+    public static double fromMinorUnits(long minorUnits) {
+        return minorUnits / (double) MINOR_UNITS_PER_UNIT;
+    }
+}
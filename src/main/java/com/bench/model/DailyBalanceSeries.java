@@ -0,0 +1,286 @@
+package com.bench.model;
+
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * An immutable series of running daily balances over a contiguous range of days.  The balances are held in minor
+ * units in a dense array indexed by the epoch day minus the first epoch day, so looking up the balance of a day is
+ * O(1) and range views share the array of the series they are taken from.
+ *
+ * Created by dlee.
+ */
+public final class DailyBalanceSeries {
+    private static final DailyBalanceSeries EMPTY = new DailyBalanceSeries(0, new long[0], 0, 0);
+
+    private final long firstEpochDay;
+    private final long[] balances;
+    private final int offset;
+    private final int length;
+
+    private DailyBalanceSeries(long firstEpochDay, long[] balances, int offset, int length) {
+        this.firstEpochDay = firstEpochDay;
+        this.balances = balances;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return A series without any day.
+     */
+    public static DailyBalanceSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a series by tallying the running total of the daily totals in a single pass.  The array is taken over by
+     * the series and must not be modified afterwards.
+     *
+     * @param firstEpochDay The epoch day of the first daily total.
+     * @param dailyTotals   The total of each day in minor units, one slot per day.
+     * @return The running daily balances.
+     */
+    public static DailyBalanceSeries ofDailyTotals(long firstEpochDay, long[] dailyTotals) {
+        for (int i = 1; i < dailyTotals.length; i++) {
+            dailyTotals[i] += dailyTotals[i - 1];
+        }
+        return ofRunningBalances(firstEpochDay, dailyTotals);
+    }
+
+    /**
+     * Creates a series from already tallied running balances.  The array is taken over by the series and must not be
+     * modified afterwards.
+     *
+     * @param firstEpochDay   The epoch day of the first balance.
+     * @param runningBalances The running balance of each day in minor units, one slot per day.
+     * @return The running daily balances.
+     */
+    public static DailyBalanceSeries ofRunningBalances(long firstEpochDay, long[] runningBalances) {
+        return runningBalances.length == 0 ? EMPTY : new DailyBalanceSeries(firstEpochDay, runningBalances, 0, runningBalances.length);
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * @return The first day of the series, NULL if the series is empty.
+     */
+    public LocalDate getFirstDate() {
+        return isEmpty() ? null : getDate(0);
+    }
+
+    /**
+     * @return The last day of the series, NULL if the series is empty.
+     */
+    public LocalDate getLastDate() {
+        return isEmpty() ? null : getDate(length - 1);
+    }
+
+    /**
+     * @param index The position of the day in the series.
+     * @return The day at the position.
+     */
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(getEpochDay(index));
+    }
+
+    public long getEpochDay(int index) {
+        checkIndex(index);
+        return firstEpochDay + offset + index;
+    }
+
+    /**
+     * @param index The position of the day in the series.
+     * @return The running balance at the end of the day at the position.
+     */
+    public double getBalance(int index) {
+        return Amounts.fromMinorUnits(getBalanceMinorUnits(index));
+    }
+
+    public long getBalanceMinorUnits(int index) {
+        checkIndex(index);
+        return balances[offset + index];
+    }
+
+    /**
+     * @return The running balance of the last day, 0 if the series is empty.
+     */
+    public double getLastBalance() {
+        return Amounts.fromMinorUnits(getLastBalanceMinorUnits());
+    }
+
+    public long getLastBalanceMinorUnits() {
+        return isEmpty() ? 0 : getBalanceMinorUnits(length - 1);
+    }
+
+    /**
+     * Looks up the running balance as of the end of a day.  A day before the start of the balances has a zero balance
+     * and a day after the end of the balances has the last balance.
+     *
+     * @param date The day to look up.
+     * @return The running balance as of the day.
+     */
+    public double balanceOn(LocalDate date) {
+        return Amounts.fromMinorUnits(balanceMinorUnitsOn(date));
+    }
+
+    public long balanceMinorUnitsOn(LocalDate date) {
+        if (length == 0) {
+            return 0;
+        }
+        long index = date.toEpochDay() - firstEpochDay - offset;
+        if (index < 0) {
+            return 0;
+        }
+        return balances[offset + (int) Math.min(index, length - 1)];
+    }
+
+    /**
+     * @param from The first day of the range, inclusive.
+     * @param to   The last day of the range, inclusive.
+     * @return A view of the days of this series within the range.
+     */
+    public DailyBalanceSeries between(LocalDate from, LocalDate to) {
+        return slice(from.toEpochDay(), to.toEpochDay() + 1);
+    }
+
+    /**
+     * @return An unmodifiable sorted map view of this series, for callers that need the balances keyed by date.
+     */
+    public SortedMap<LocalDate, Double> asSortedMap() {
+        return new SortedMapView(this);
+    }
+
+    private DailyBalanceSeries slice(long fromEpochDay, long toEpochDayExclusive) {
+        long start = firstEpochDay + offset;
+        long from = Math.max(fromEpochDay, start);
+        long to = Math.min(toEpochDayExclusive, start + length);
+        if (from >= to) {
+            return new DailyBalanceSeries(firstEpochDay, balances, offset, 0);
+        }
+        return new DailyBalanceSeries(firstEpochDay, balances, (int) (from - firstEpochDay), (int) (to - from));
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof LocalDate)) {
+            return -1;
+        }
+        long index = ((LocalDate) key).toEpochDay() - firstEpochDay - offset;
+        return index >= 0 && index < length ? (int) index : -1;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+        }
+    }
+
+    /**
+     * Read-only sorted map over a series, creating the entries as they are iterated.
+     */
+    private static class SortedMapView extends AbstractMap<LocalDate, Double> implements SortedMap<LocalDate, Double> {
+        private final DailyBalanceSeries series;
+
+        SortedMapView(DailyBalanceSeries series) {
+            this.series = series;
+        }
+
+        @Override
+        public Comparator<? super LocalDate> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedMap<LocalDate, Double> subMap(LocalDate fromKey, LocalDate toKey) {
+            if (fromKey.isAfter(toKey)) {
+                throw new IllegalArgumentException("From key " + fromKey + " is after to key " + toKey + ".");
+            }
+            return new SortedMapView(series.slice(fromKey.toEpochDay(), toKey.toEpochDay()));
+        }
+
+        @Override
+        public SortedMap<LocalDate, Double> headMap(LocalDate toKey) {
+            return new SortedMapView(series.slice(Long.MIN_VALUE, toKey.toEpochDay()));
+        }
+
+        @Override
+        public SortedMap<LocalDate, Double> tailMap(LocalDate fromKey) {
+            return new SortedMapView(series.slice(fromKey.toEpochDay(), Long.MAX_VALUE));
+        }
+
+        @Override
+        public LocalDate firstKey() {
+            if (series.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return series.getFirstDate();
+        }
+
+        @Override
+        public LocalDate lastKey() {
+            if (series.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return series.getLastDate();
+        }
+
+        @Override
+        public int size() {
+            return series.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return series.indexOf(key) >= 0;
+        }
+
+        @Override
+        public Double get(Object key) {
+            int index = series.indexOf(key);
+            return index < 0 ? null : series.getBalance(index);
+        }
+
+        @Override
+        public Set<Entry<LocalDate, Double>> entrySet() {
+            return new AbstractSet<Entry<LocalDate, Double>>() {
+                @Override
+                public Iterator<Entry<LocalDate, Double>> iterator() {
+                    return new Iterator<Entry<LocalDate, Double>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < series.size();
+                        }
+
+                        @Override
+                        public Entry<LocalDate, Double> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<LocalDate, Double> entry = new SimpleImmutableEntry<>(series.getDate(index), series.getBalance(index));
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return series.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.bench.model;
+
+/**
+ * An immutable summary of a page of transactions that has been read without keeping its transactions.
+ *
+ * Created by dlee.
+ */
+public final class PageSummary {
+    private final int totalCount;
+    private final int page;
+    private final int transactionCount;
+
+    public PageSummary(int totalCount, int page, int transactionCount) {
+        this.totalCount = totalCount;
+        this.page = page;
+        this.transactionCount = transactionCount;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getTransactionCount() {
+        return transactionCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PageSummary that = (PageSummary) o;
+
+        if (totalCount != that.totalCount) return false;
+        if (page != that.page) return false;
+        return transactionCount == that.transactionCount;
+
+    }
+
+    @Override
+    public int hashCode() {
+        int result = totalCount;
+        result = 31 * result + page;
+        result = 31 * result + transactionCount;
+        return result;
+    }
+}
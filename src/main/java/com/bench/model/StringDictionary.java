@@ -0,0 +1,55 @@
+package com.bench.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns strings into dense int codes, so a repeated value is stored once and referenced by its code.  Codes are
+ * assigned in order of first appearance, starting at 0.
+ *
+ * Created by dlee.
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * @param value The value to intern.
+     * @return The code of the value, assigning a new code if the value was not seen before.
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * @param value The value to look up.
+     * @return The code of the value, -1 if the value was never interned.
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * @param code The code of a value.
+     * @return The interned value.
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * @return The number of distinct values interned.
+     */
+    public int size() {
+        return values.size();
+    }
+}
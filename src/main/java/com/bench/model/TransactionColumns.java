@@ -0,0 +1,180 @@
+package com.bench.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A column oriented store of transactions backed by primitive arrays.  Dates are held as epoch days, amounts as
+ * minor units and the ledger and company values as codes into dictionaries, so a transaction takes 20 bytes and
+ * calculations scan contiguous arrays instead of chasing one object per transaction.
+ *
+ * Transactions are appended by feeding them to the store, e.g. from
+ * {@code TransactionService.forEachTransaction(columns)}.
+ *
+ * Created by dlee.
+ */
+public class TransactionColumns implements Consumer<Transaction> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final StringDictionary ledgers = new StringDictionary();
+    private final StringDictionary companies = new StringDictionary();
+    private int[] epochDays;
+    private long[] amounts;
+    private int[] ledgerCodes;
+    private int[] companyCodes;
+    private int size;
+
+    public TransactionColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Expected number of transactions, e.g. the total count of the first page.
+     */
+    public TransactionColumns(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        epochDays = new int[capacity];
+        amounts = new long[capacity];
+        ledgerCodes = new int[capacity];
+        companyCodes = new int[capacity];
+    }
+
+    @Override
+    public void accept(Transaction transaction) {
+        add(transaction.getDate(), transaction.getLedger(), transaction.getAmount(), transaction.getCompany());
+    }
+
+    /**
+     * Appends a transaction.
+     */
+    public void add(LocalDate date, String ledger, double amount, String company) {
+        if (size == epochDays.length) {
+            grow();
+        }
+        epochDays[size] = Math.toIntExact(date.toEpochDay());
+        amounts[size] = Amounts.toMinorUnits(amount);
+        ledgerCodes[size] = ledgers.encode(ledger);
+        companyCodes[size] = companies.encode(company);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getEpochDay(int index) {
+        checkIndex(index);
+        return epochDays[index];
+    }
+
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(getEpochDay(index));
+    }
+
+    public long getAmountMinorUnits(int index) {
+        checkIndex(index);
+        return amounts[index];
+    }
+
+    public double getAmount(int index) {
+        return Amounts.fromMinorUnits(getAmountMinorUnits(index));
+    }
+
+    public int getLedgerCode(int index) {
+        checkIndex(index);
+        return ledgerCodes[index];
+    }
+
+    public String getLedger(int index) {
+        return ledgers.decode(getLedgerCode(index));
+    }
+
+    public int getCompanyCode(int index) {
+        checkIndex(index);
+        return companyCodes[index];
+    }
+
+    public String getCompany(int index) {
+        return companies.decode(getCompanyCode(index));
+    }
+
+    /**
+     * @return The transaction at the index, as a new object.
+     */
+    public Transaction getTransaction(int index) {
+        return new Transaction(getDate(index), getLedger(index), getAmount(index), getCompany(index));
+    }
+
+    public StringDictionary getLedgers() {
+        return ledgers;
+    }
+
+    public StringDictionary getCompanies() {
+        return companies;
+    }
+
+    /**
+     * @return The sum of all the amounts, in minor units.
+     */
+    public long sumMinorUnits() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += amounts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return The earliest epoch day, {@link Integer#MAX_VALUE} if the store is empty.
+     */
+    public int minEpochDay() {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, epochDays[i]);
+        }
+        return min;
+    }
+
+    /**
+     * @return The last epoch day, {@link Integer#MIN_VALUE} if the store is empty.
+     */
+    public int maxEpochDay() {
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, epochDays[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Sums the amounts per day over a dense range of days.
+     *
+     * @param firstEpochDay The epoch day of the first slot, must not be after {@link #minEpochDay()}.
+     * @param days          The number of slots, must cover {@link #maxEpochDay()}.
+     * @return The sum of the amounts of each day in minor units, indexed by the epoch day minus the first epoch day.
+     */
+    public long[] sumMinorUnitsByDay(int firstEpochDay, int days) {
+        long[] sums = new long[days];
+        for (int i = 0; i < size; i++) {
+            sums[epochDays[i] - firstEpochDay] += amounts[i];
+        }
+        return sums;
+    }
+
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, epochDays.length + (epochDays.length >> 1));
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        ledgerCodes = Arrays.copyOf(ledgerCodes, capacity);
+        companyCodes = Arrays.copyOf(companyCodes, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.bench.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Hand-written deserializer of the transaction object, reading the fields straight from the parser tokens.
+ * <ul>
+ * <li>Dates in the {@code yyyy-MM-dd} form are parsed from the token characters and looked up in a small cache of
+ * recently seen dates, because many transactions share the same date.</li>
+ * <li>Amounts quoted as decimal strings are read into minor units, then converted to a double with a single
+ * division, which gives the same value as parsing the string. This only holds while the minor units are exact as a
+ * double, so the fast path is limited to 13 unit digits.</li>
+ * </ul>
+ * Anything else, e.g. another date format or an amount with more than two decimals, falls back to the regular
+ * databind handling, and a value that is not an object is handed to the default bean deserializer.
+ *
+ * Use {@link TransactionModule} to register it with an ObjectMapper.
+ *
+ * Created by dlee.
+ */
+public class TransactionDeserializer extends StdDeserializer<Transaction> implements ResolvableDeserializer {
+    private static final int DATE_CACHE_SIZE = 1024;
+    private static final long NOT_FIXED_POINT = Long.MIN_VALUE;
+    // 13 unit digits and 2 decimals stay below 2^53, so the minor units convert to a double exactly
+    private static final int MAX_UNIT_DIGITS = 13;
+
+    private final JsonDeserializer<?> defaultDeserializer;
+    // racy by design: dates are immutable, so a lost update only costs a cache miss
+    private final LocalDate[] dateCache = new LocalDate[DATE_CACHE_SIZE];
+
+    /**
+     * @param defaultDeserializer The deserializer built by Jackson from the annotations of {@link Transaction}.
+     */
+    public TransactionDeserializer(JsonDeserializer<?> defaultDeserializer) {
+        super(Transaction.class);
+        this.defaultDeserializer = defaultDeserializer;
+    }
+
+    @Override
+    public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+        if (defaultDeserializer instanceof ResolvableDeserializer) {
+            ((ResolvableDeserializer) defaultDeserializer).resolve(ctxt);
+        }
+    }
+
+    @Override
+    public Transaction deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (Transaction) defaultDeserializer.deserialize(p, ctxt);
+        }
+
+        LocalDate date = null;
+        String ledger = null;
+        double amount = 0d;
+        String company = null;
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "Date":
+                    date = readDate(p, ctxt);
+                    break;
+                case "Ledger":
+                    ledger = readString(p, ctxt);
+                    break;
+                case "Amount":
+                    amount = readAmount(p, ctxt);
+                    break;
+                case "Company":
+                    company = readString(p, ctxt);
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, this, Transaction.class, field);
+            }
+        }
+        return new Transaction(date, ledger, amount, company);
+    }
+
+    private LocalDate readDate(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            return LocalDate.parse(ctxt.readValue(p, String.class));
+        }
+
+        LocalDate date = parseIsoDate(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        return date != null ? date : LocalDate.parse(p.getText());
+    }
+
+    private String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return p.getText();
+        }
+        return token == JsonToken.VALUE_NULL ? null : ctxt.readValue(p, String.class);
+    }
+
+    private double readAmount(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return p.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            char[] chars = p.getTextCharacters();
+            int offset = p.getTextOffset();
+            int length = p.getTextLength();
+            long minorUnits = parseMinorUnits(chars, offset, length);
+            if (minorUnits != NOT_FIXED_POINT) {
+                // keep the sign of a negative zero, the same as parsing the string would
+                return minorUnits == 0 && length > 0 && chars[offset] == '-' ? -0d : Amounts.fromMinorUnits(minorUnits);
+            }
+        }
+        return ctxt.readValue(p, double.class);
+    }
+
+    /**
+     * Parses a date in the {@code yyyy-MM-dd} form, reusing a cached instance of the same date when there is one.
+     *
+     * @return The date, NULL if the characters are not in the expected form.
+     */
+    LocalDate parseIsoDate(char[] chars, int offset, int length) {
+        if (length != 10 || chars[offset + 4] != '-' || chars[offset + 7] != '-') {
+            return null;
+        }
+        int year = digits(chars, offset, 4);
+        int month = digits(chars, offset + 5, 2);
+        int day = digits(chars, offset + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+
+        int key = year * 10000 + month * 100 + day;
+        int slot = (key * 0x9E3779B1) >>> (32 - Integer.numberOfTrailingZeros(DATE_CACHE_SIZE));
+        LocalDate cached = dateCache[slot];
+        if (cached != null && cached.getDayOfMonth() == day && cached.getMonthValue() == month && cached.getYear() == year) {
+            return cached;
+        }
+
+        try {
+            LocalDate date = LocalDate.of(year, month, day);
+            dateCache[slot] = date;
+            return date;
+        } catch (DateTimeException e) {
+            return null;    // let the regular parsing report the invalid date
+        }
+    }
+
+    /**
+     * Parses a decimal amount with at most two decimals, e.g. {@code -100.55}, into minor units.
+     *
+     * @return The amount in minor units, {@link #NOT_FIXED_POINT} if the characters are not in the expected form.
+     */
+    static long parseMinorUnits(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long units = 0;
+        int unitDigits = 0;
+        for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++, unitDigits++) {
+            units = units * 10 + (chars[i] - '0');
+        }
+        int decimals = 0;
+        if (i < end && chars[i] == '.') {
+            for (i++; i < end && decimals < 2 && chars[i] >= '0' && chars[i] <= '9'; i++, decimals++) {
+                units = units * 10 + (chars[i] - '0');
+            }
+        }
+        if (i != end || unitDigits + decimals == 0 || unitDigits > MAX_UNIT_DIGITS) {
+            return NOT_FIXED_POINT;
+        }
+
+        for (; decimals < 2; decimals++) {
+            units *= 10;
+        }
+        return negative ? -units : units;
+    }
+
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package com.bench.model;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Jackson module replacing the annotation driven deserialization of {@link Transaction} with
+ * {@link TransactionDeserializer}.  An ObjectMapper without the module keeps the regular databind behavior.
+ *
+ * Created by dlee.
+ */
+public class TransactionModule extends SimpleModule {
+
+    public TransactionModule() {
+        super("TransactionModule");
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+                return beanDesc.getBeanClass() == Transaction.class ? new TransactionDeserializer(deserializer) : deserializer;
+            }
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.bench.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads a page of transactions token by token and hands each transaction to a consumer as soon as it is parsed, so
+ * neither the page body as a string nor the list of transactions of the page are ever held in memory.
+ *
+ * Created by dlee.
+ */
+public class TransactionPageReader {
+    private final JsonFactory jsonFactory;
+    private final ObjectReader transactionReader;
+
+    public TransactionPageReader(ObjectMapper om) {
+        this.jsonFactory = om.getFactory();
+        this.transactionReader = om.readerFor(Transaction.class);
+    }
+
+    /**
+     * Reads a page from the raw response body.
+     *
+     * @param body     The JSON page body.
+     * @param consumer Receives each transaction of the page in order.
+     * @return The summary of the page read.
+     * @throws IOException If the body is not a valid page.
+     */
+    public PageSummary read(byte[] body, Consumer<? super Transaction> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return read(parser, consumer);
+        }
+    }
+
+    /**
+     * Reads a page from a stream.  The stream is not closed.
+     *
+     * @param body     The JSON page body.
+     * @param consumer Receives each transaction of the page in order.
+     * @return The summary of the page read.
+     * @throws IOException If the body is not a valid page.
+     */
+    public PageSummary read(InputStream body, Consumer<? super Transaction> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return read(parser, consumer);
+        }
+    }
+
+    private PageSummary read(JsonParser parser, Consumer<? super Transaction> consumer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a transaction page object.");
+        }
+
+        int totalCount = 0;
+        int page = 0;
+        int transactionCount = 0;
+        boolean hasTransactions = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("totalCount".equals(field)) {
+                totalCount = parser.getValueAsInt();
+            } else if ("page".equals(field)) {
+                page = parser.getValueAsInt();
+            } else if ("transactions".equals(field) && value == JsonToken.START_ARRAY) {
+                hasTransactions = true;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    consumer.accept(transactionReader.readValue(parser));
+                    transactionCount++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (!hasTransactions) {
+            throw new IOException("Expected a list of transactions in the page.");
+        }
+        return new PageSummary(totalCount, page, transactionCount);
+    }
+}
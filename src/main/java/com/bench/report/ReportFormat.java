@@ -0,0 +1,48 @@
+package com.bench.report;
+
+/**
+ * Formats of a balance report.
+ *
+ * Created by dlee.
+ */
+public enum ReportFormat {
+    /**
+     * The human readable report, amounts with up to two decimals, e.g. {@code 2000-01-01: $489.5}.
+     */
+    TEXT("txt"),
+    /**
+     * A {@code date,balance} header then one row per day, amounts with two decimals.
+     */
+    CSV("csv"),
+    /**
+     * An object with the {@code totalBalance} and the {@code dailyBalances} array of {@code date} and {@code balance}
+     * objects, amounts as numbers with two decimals.
+     */
+    JSON("json");
+
+    private final String extension;
+
+    ReportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return The usual file extension of the format, without the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param name The name of the format, in any case.
+     * @return The format.
+     */
+    public static ReportFormat of(String name) {
+        for (ReportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown report format: " + name);
+    }
+}
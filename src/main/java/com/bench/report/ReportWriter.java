@@ -0,0 +1,322 @@
+package com.bench.report;
+
+import com.bench.model.DailyBalanceSeries;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Writes balance reports to a channel through a direct buffer, or a buffer of the caller, encoding the dates and the
+ * amounts straight into the buffer as ASCII.  The balances are read from the series in minor units and formatted with
+ * integer arithmetic, so no string, formatter or boxed value is created per day, and the channel is written once per
+ * buffer rather than once per line.
+ *
+ * Created by dlee.
+ */
+public class ReportWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_BUFFER_SIZE = 256;
+    private static final byte[] TOTAL_BALANCE = ascii("Total Balance: $");
+    private static final byte[] RUNNING_DAILY_BALANCES = ascii("Running Daily Balances:");
+    private static final byte[] TEXT_SEPARATOR = ascii(": $");
+    private static final byte[] CSV_HEADER = ascii("date,balance");
+    private static final byte[] JSON_START = ascii("{\"totalBalance\":");
+    private static final byte[] JSON_DAILY_BALANCES = ascii(",\"dailyBalances\":[");
+    private static final byte[] JSON_DATE = ascii("{\"date\":\"");
+    private static final byte[] JSON_BALANCE = ascii("\",\"balance\":");
+    private static final byte[] JSON_END = ascii("]}");
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final ReportFormat format;
+    private final ByteBuffer buffer;
+    private final byte[] lineSeparator = ascii(System.lineSeparator());
+    private final byte[] digits = new byte[20];
+
+    /**
+     * @param channel The channel written to, closed with this writer.
+     * @param format  The format of the reports.
+     */
+    public ReportWriter(WritableByteChannel channel, ReportFormat format) {
+        this(channel, true, format, ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+
+    /**
+     * Writes through a buffer of the caller instead of a new direct buffer, e.g. a heap buffer reused by the requests of
+     * a server thread.  The buffer is cleared first and must not be used by anything else until the writer is closed.
+     *
+     * @param channel The channel written to, closed with this writer.
+     * @param format  The format of the reports.
+     * @param buffer  The buffer the reports are encoded into, of at least 256 bytes.
+     */
+    public ReportWriter(WritableByteChannel channel, ReportFormat format, ByteBuffer buffer) {
+        this(channel, true, format, buffer);
+        if (buffer.capacity() < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer must hold at least " + MIN_BUFFER_SIZE + " bytes.");
+        }
+    }
+
+    private ReportWriter(WritableByteChannel channel, boolean closeChannel, ReportFormat format, ByteBuffer buffer) {
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.format = format;
+        this.buffer = buffer;
+        buffer.clear();
+    }
+
+    /**
+     * @param file   The file written to, replaced if it exists.
+     * @param format The format of the reports.
+     * @return A writer to the file.
+     */
+    public static ReportWriter open(Path file, ReportFormat format) throws IOException {
+        return new ReportWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE), format);
+    }
+
+    /**
+     * Writes to the standard output through its file descriptor, bypassing {@link System#out}, which is flushed first
+     * to keep the output in order.  Closing the writer leaves the standard output open.
+     *
+     * @param format The format of the reports.
+     * @return A writer to the standard output.
+     */
+    public static ReportWriter toStandardOutput(ReportFormat format) {
+        System.out.flush();
+        return new ReportWriter(new FileOutputStream(FileDescriptor.out).getChannel(), false, format, ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+
+    /**
+     * Writes the report of the running daily balances: the total balance, which is the balance of the last day, then
+     * the balance of each day in chronological order.
+     *
+     * @param balances The running daily balances.
+     */
+    public void write(DailyBalanceSeries balances) throws IOException {
+        switch (format) {
+            case TEXT:
+                writeText(balances);
+                break;
+            case CSV:
+                writeCsv(balances);
+                break;
+            case JSON:
+                writeJson(balances);
+                break;
+            default:
+                throw new IllegalStateException("Unknown report format: " + format);
+        }
+    }
+
+    private void writeText(DailyBalanceSeries balances) throws IOException {
+        put(TOTAL_BALANCE);
+        putAmount(balances.getLastBalanceMinorUnits(), false);
+        put(lineSeparator);
+        put(lineSeparator);
+        put(RUNNING_DAILY_BALANCES);
+        put(lineSeparator);
+        DateCursor date = new DateCursor(balances);
+        for (int i = 0; i < balances.size(); i++, date.next()) {
+            date.put();
+            put(TEXT_SEPARATOR);
+            putAmount(balances.getBalanceMinorUnits(i), false);
+            put(lineSeparator);
+        }
+    }
+
+    private void writeCsv(DailyBalanceSeries balances) throws IOException {
+        put(CSV_HEADER);
+        put((byte) '\n');
+        DateCursor date = new DateCursor(balances);
+        for (int i = 0; i < balances.size(); i++, date.next()) {
+            date.put();
+            put((byte) ',');
+            putAmount(balances.getBalanceMinorUnits(i), true);
+            put((byte) '\n');
+        }
+    }
+
+    private void writeJson(DailyBalanceSeries balances) throws IOException {
+        put(JSON_START);
+        putAmount(balances.getLastBalanceMinorUnits(), true);
+        put(JSON_DAILY_BALANCES);
+        DateCursor date = new DateCursor(balances);
+        for (int i = 0; i < balances.size(); i++, date.next()) {
+            if (i > 0) {
+                put((byte) ',');
+            }
+            put(JSON_DATE);
+            date.put();
+            put(JSON_BALANCE);
+            putAmount(balances.getBalanceMinorUnits(i), true);
+            put((byte) '}');
+        }
+        put(JSON_END);
+        put((byte) '\n');
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (closeChannel) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Formats an amount the same way as the text reports, i.e. as {@code new DecimalFormat("#.##")} formats the amount
+     * in units.
+     *
+     * @param minorUnits The amount in minor units, e.g. -10050.
+     * @return The amount with up to two decimals, e.g. {@code -100.5}.
+     */
+    public static String formatAmount(long minorUnits) {
+        StringBuilder sb = new StringBuilder(24);
+        long units = minorUnits / 100;
+        int cents = (int) Math.abs(minorUnits % 100);
+        if (minorUnits < 0) {
+            sb.append('-');
+        }
+        sb.append(Math.abs(units));
+        if (cents != 0) {
+            sb.append('.').append(cents / 10);
+            if (cents % 10 != 0) {
+                sb.append(cents % 10);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Puts an amount in minor units, with two decimals if fixed, otherwise without the trailing zero decimals.
+     */
+    private void putAmount(long minorUnits, boolean fixed) throws IOException {
+        // negative arithmetic, so the smallest long has a magnitude too
+        long negative = minorUnits < 0 ? minorUnits : -minorUnits;
+        int cents = (int) -(negative % 100);
+        long units = negative / 100;
+        if (minorUnits < 0) {
+            put((byte) '-');
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' - units % 10);
+            units /= 10;
+        } while (units != 0);
+        ensureRemaining(length + 3);
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+        if (fixed || cents != 0) {
+            buffer.put((byte) '.');
+            buffer.put((byte) ('0' + cents / 10));
+            if (fixed || cents % 10 != 0) {
+                buffer.put((byte) ('0' + cents % 10));
+            }
+        }
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void put(byte b) throws IOException {
+        ensureRemaining(1);
+        buffer.put(b);
+    }
+
+    private void ensureRemaining(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The date of the current day of a series, stepped forward one day at a time without converting each epoch day.
+     */
+    private final class DateCursor {
+        private int year;
+        private int month;
+        private int day;
+
+        DateCursor(DailyBalanceSeries balances) {
+            if (!balances.isEmpty()) {
+                LocalDate first = balances.getFirstDate();
+                year = first.getYear();
+                month = first.getMonthValue();
+                day = first.getDayOfMonth();
+            }
+        }
+
+        void next() {
+            if (day < daysInMonth()) {
+                day++;
+            } else if (month < 12) {
+                day = 1;
+                month++;
+            } else {
+                day = 1;
+                month = 1;
+                year++;
+            }
+        }
+
+        /**
+         * Puts the date in the ISO format of {@link LocalDate#toString()}.
+         */
+        void put() throws IOException {
+            if (year < 0 || year > 9999) {
+                ReportWriter.this.put(ascii(LocalDate.of(year, month, day).toString()));
+                return;
+            }
+            ensureRemaining(10);
+            putDigits(year / 100);
+            putDigits(year % 100);
+            buffer.put((byte) '-');
+            putDigits(month);
+            buffer.put((byte) '-');
+            putDigits(day);
+        }
+
+        private void putDigits(int twoDigits) {
+            buffer.put((byte) ('0' + twoDigits / 10));
+            buffer.put((byte) ('0' + twoDigits % 10));
+        }
+
+        private int daysInMonth() {
+            if (month == 2 && (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))) {
+                return 29;
+            }
+            return DAYS_IN_MONTH[month - 1];
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.bench.server;
+
+import com.bench.model.Amounts;
+import com.bench.model.Transaction;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Embedded HTTP server serving synthetic transactions at {@code /transactions/{n}.json}, in the format of the
+ * transactions API, for load and soak testing without the real API.
+ *
+ * The transactions are derived from the seed and their position in the feed only, so a feed is the same from one run
+ * to the next whatever the order of the requests.  The latency and the failures of a response are derived from the
+ * seed, the page and the number of times the page was requested, so a retried page can succeed where the first
+ * attempt failed.  The pages are gzipped for the requests accepting it.
+ *
+ * The JDK server writes the headers and the body separately, so run it with {@code -Dsun.net.httpserver.nodelay=true},
+ * otherwise the body of each response waits for a delayed ACK.
+ *
+ * The server is configured before {@link #start()}, e.g.
+ * <pre>
+ * SyntheticTransactionServer server = new SyntheticTransactionServer(42, 10000, 10);
+ * server.setLatencyMillis(20);
+ * server.setJitterMillis(5);
+ * server.start();
+ * transactionService.setBaseUrl(server.getBaseUrl());
+ * </pre>
+ *
+ * Created by dlee.
+ */
+public class SyntheticTransactionServer implements AutoCloseable {
+    public static final LocalDate DEFAULT_FIRST_DATE = LocalDate.of(2013, 12, 1);
+    public static final int DEFAULT_DAYS = 365;
+
+    private static final String[] LEDGERS = {
+            "Business Meals & Entertainment Expense", "Insurance Expense", "Office Expense", "Phone & Internet Expense",
+            "Postage & Shipping Expense", "Travel Expense", "Web Hosting & Services Expense", ""
+    };
+    private static final int COMPANIES = 500;
+    private static final long MAX_AMOUNT_MINOR_UNITS = 1000000;
+
+    // salts keeping the random values of the different fields independent
+    private static final long DATE = 1;
+    private static final long LEDGER = 2;
+    private static final long AMOUNT = 3;
+    private static final long COMPANY = 4;
+    private static final long FAILURE = 5;
+    private static final long JITTER = 6;
+
+    private final long seed;
+    private final int pageSize;
+    private final AtomicInteger totalCount;
+    private LocalDate firstDate = DEFAULT_FIRST_DATE;
+    private int days = DEFAULT_DAYS;
+    private long latencyMillis;
+    private long jitterMillis;
+    private double errorRate;
+    private int totalCountDrift;
+
+    private final ConcurrentMap<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param seed       Seed of the random values.
+     * @param totalCount Number of transactions in the feed.
+     * @param pageSize   Number of transactions per page, the last page holding the remainder.
+     */
+    public SyntheticTransactionServer(long seed, int totalCount, int pageSize) {
+        if (totalCount < 0) {
+            throw new IllegalArgumentException("Total count cannot be negative.");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        this.seed = seed;
+        this.totalCount = new AtomicInteger(totalCount);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param firstDate The earliest date of the transactions.
+     * @param days      Number of days the dates are spread over, from the first date.
+     */
+    public void setDateRange(LocalDate firstDate, int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Days must be at least 1.");
+        }
+        this.firstDate = firstDate;
+        this.days = days;
+    }
+
+    /**
+     * @param latencyMillis Delay before each response, 0 by default.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * @param jitterMillis Mean of an exponentially distributed delay added to the latency, 0 by default.  Most
+     *                     responses get a small share of it and a few get several times the mean, like the tail
+     *                     latency of a real server.
+     */
+    public void setJitterMillis(long jitterMillis) {
+        this.jitterMillis = jitterMillis;
+    }
+
+    /**
+     * @param errorRate Probability from 0 to 1 of answering a request with a 500, 0 by default.
+     */
+    public void setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1.");
+        }
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @param totalCountDrift Number of transactions appended to the feed after each page served, or removed from its
+     *                        end when negative, 0 by default.  It changes the total count between the requests of a
+     *                        run, as when the feed is updated mid-run.
+     */
+    public void setTotalCountDrift(int totalCountDrift) {
+        this.totalCountDrift = totalCountDrift;
+    }
+
+    /**
+     * Starts serving on an ephemeral port of the loopback address.
+     *
+     * @throws IOException If the server cannot be bound.
+     */
+    public void start() throws IOException {
+        start(0);
+    }
+
+    /**
+     * Starts serving on a port of the loopback address.
+     *
+     * @param port The port, 0 for an ephemeral port.
+     * @throws IOException If the server cannot be bound.
+     */
+    public void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server is already started.");
+        }
+        // a thread per request in flight, so the latency of a response does not delay the others
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "synthetic-transaction-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/transactions/", this::serve);
+        server.start();
+    }
+
+    /**
+     * @return The base URL of the server, e.g. {@code http://127.0.0.1:8080}.
+     */
+    public String getBaseUrl() {
+        if (server == null) {
+            throw new IllegalStateException("Server is not started.");
+        }
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return The current number of transactions in the feed.
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return The number of page requests received so far.
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @param index Position of the transaction in the feed, from 0.
+     * @return The transaction served at the position.
+     */
+    public Transaction getTransaction(int index) {
+        return new Transaction(
+                firstDate.plusDays(Math.floorMod(random(DATE, index, 0), days)),
+                LEDGERS[Math.floorMod((int) random(LEDGER, index, 0), LEDGERS.length)],
+                Amounts.fromMinorUnits(amountMinorUnits(index)),
+                "Company " + Math.floorMod(random(COMPANY, index, 0), COMPANIES));
+    }
+
+    private long amountMinorUnits(int index) {
+        return Math.floorMod(random(AMOUNT, index, 0), 2 * MAX_AMOUNT_MINOR_UNITS + 1) - MAX_AMOUNT_MINOR_UNITS;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            int page = pageOf(exchange.getRequestURI().getPath());
+            int count = totalCount.get();
+            int lastPage = Math.max(1, (count + pageSize - 1) / pageSize);
+            if (page < 1 || page > lastPage) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            int attempt = attempts.computeIfAbsent(page, p -> new AtomicInteger()).getAndIncrement();
+            delay(page, attempt);
+            if (errorRate > 0 && unit(random(FAILURE, page, attempt)) < errorRate) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            byte[] body = page(count, page);
+            if (totalCountDrift != 0) {
+                totalCount.updateAndGet(c -> Math.max(0, c + totalCountDrift));
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (acceptsGzip(exchange)) {
+                body = gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static int pageOf(String path) {
+        if (!path.endsWith(".json")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(path.substring(path.lastIndexOf('/') + 1, path.length() - ".json".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void delay(int page, int attempt) {
+        long millis = latencyMillis;
+        if (jitterMillis > 0) {
+            millis += (long) (-Math.log(1 - unit(random(JITTER, page, attempt))) * jitterMillis);
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return The JSON body of a page of the feed of the given total count.
+     */
+    private byte[] page(int count, int page) {
+        int from = (page - 1) * pageSize;
+        int to = Math.min(from + pageSize, count);
+        StringBuilder json = new StringBuilder(64 + (to - from) * 128);
+        json.append("{\"totalCount\":").append(count).append(",\"page\":").append(page).append(",\"transactions\":[");
+        for (int i = from; i < to; i++) {
+            Transaction t = getTransaction(i);
+            json.append(i == from ? "{" : ",{")
+                    .append("\"Date\":\"").append(t.getDate()).append("\",")
+                    .append("\"Ledger\":\"").append(t.getLedger()).append("\",")
+                    .append("\"Amount\":\"").append(BigDecimal.valueOf(amountMinorUnits(i), 2).toPlainString()).append("\",")
+                    .append("\"Company\":\"").append(t.getCompany()).append("\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A random value derived from the seed, the field and the position, with the finalizer of SplitMix64.
+     */
+    private long random(long salt, long a, long b) {
+        long z = seed + salt * 0x9E3779B97F4A7C15L + a * 0xBF58476D1CE4E5B9L + b * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return A value in [0, 1) from the 53 high bits of a random value.
+     */
+    private static double unit(long random) {
+        return (random >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Stops the server, dropping the requests in flight.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+}
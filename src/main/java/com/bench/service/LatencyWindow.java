@@ -0,0 +1,56 @@
+package com.bench.service;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent requests, to find the percentile beyond which a request is hedged.
+ *
+ * Created by dlee.
+ */
+final class LatencyWindow {
+    static final int DEFAULT_CAPACITY = 256;
+    static final int DEFAULT_MIN_SAMPLES = 16;
+
+    private final long[] samples;
+    private final int minSamples;
+    private int count;
+    private int next;
+
+    // the sorted samples, recomputed when a sample was recorded since
+    private long[] sorted;
+
+    LatencyWindow() {
+        this(DEFAULT_CAPACITY, DEFAULT_MIN_SAMPLES);
+    }
+
+    /**
+     * @param capacity   Number of the most recent samples kept.
+     * @param minSamples Number of samples needed before there is a percentile.
+     */
+    LatencyWindow(int capacity, int minSamples) {
+        this.samples = new long[capacity];
+        this.minSamples = Math.max(1, Math.min(minSamples, capacity));
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        sorted = null;
+    }
+
+    /**
+     * @param percentile Between 0 and 1.
+     * @return The latency in nanoseconds at the percentile of the recent samples, -1 until there are enough samples.
+     */
+    synchronized long percentile(double percentile) {
+        if (count < minSamples) {
+            return -1;
+        }
+        if (sorted == null) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+        }
+        return sorted[Math.min(count - 1, (int) (percentile * count))];
+    }
+}
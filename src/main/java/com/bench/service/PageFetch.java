@@ -0,0 +1,213 @@
+package com.bench.service;
+
+import com.bench.metrics.TransactionMetrics;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The requests of a single page under a {@link RequestPolicy}.  A failed request is retried after a jittered
+ * exponential backoff, and a request slower than the hedge percentile of the recent pages is duplicated, the first
+ * response being used and the other request cancelled.
+ *
+ * The fetch completes with the first response that is not retried, or with the last response or error once the
+ * retries are exhausted, leaving the caller to handle the status as before.
+ *
+ * Created by dlee.
+ */
+final class PageFetch {
+    private final Supplier<ListenableFuture<Response>> execute;
+    private final RequestPolicy policy;
+    private final LatencyWindow latencies;
+    private final TransactionMetrics metrics;
+    private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+    // guarded by this
+    private final List<ListenableFuture<Response>> inFlight = new ArrayList<>(2);
+    private int retries;
+    private boolean hedged;
+    private boolean done;
+
+    private volatile int statusCode;
+
+    /**
+     * @param execute   Sends a new request of the page.
+     * @param policy    The policy of the requests.
+     * @param latencies The latencies of the recent pages, recording the latency of this one.
+     * @param metrics   Metrics recording the round trip, retries and hedges, NULL to record nothing.
+     */
+    PageFetch(Supplier<ListenableFuture<Response>> execute, RequestPolicy policy, LatencyWindow latencies, TransactionMetrics metrics) {
+        this.execute = execute;
+        this.policy = policy;
+        this.latencies = latencies;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sends the first request of the page.
+     *
+     * @return This fetch.
+     */
+    PageFetch start() {
+        attempt(false);
+        return this;
+    }
+
+    /**
+     * Waits for the response of the page.
+     *
+     * @return The response used for the page.
+     * @throws ExecutionException If the last request failed.
+     */
+    Response get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    /**
+     * @return The response used for the page once it arrives.
+     */
+    CompletableFuture<Response> future() {
+        return result;
+    }
+
+    /**
+     * @return The status code of the response returned by {@link #get()}, read once from it.
+     */
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Cancels the fetch and any request in flight.
+     */
+    void cancel() {
+        result.cancel(true);
+        cancelInFlight();
+    }
+
+    private void attempt(boolean hedge) {
+        if (result.isDone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ListenableFuture<Response> request;
+        try {
+            request = execute.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        synchronized (this) {
+            inFlight.add(request);
+        }
+        request.toCompletableFuture().whenComplete((response, error) -> onComplete(request, start, response, error));
+
+        // duplicate the request once it is slower than most of the recent pages
+        if (!hedge && policy.isHedging()) {
+            long hedgeDelay = latencies.percentile(policy.getHedgePercentile());
+            if (hedgeDelay >= 0) {
+                Scheduler.INSTANCE.schedule(() -> hedge(request), hedgeDelay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void hedge(ListenableFuture<Response> request) {
+        synchronized (this) {
+            if (hedged || !inFlight.contains(request)) {
+                return;
+            }
+            hedged = true;
+        }
+        if (metrics != null) {
+            metrics.recordHedge();
+        }
+        attempt(true);
+    }
+
+    private void onComplete(ListenableFuture<Response> request, long start, Response response, Throwable error) {
+        if (result.isDone()) {
+            return;
+        }
+        error = unwrap(error);
+        int status = error == null ? response.getStatusCode() : 0;
+        boolean retryable = error == null ? policy.isRetryable(status) : policy.isRetryable(error);
+
+        boolean retry;
+        synchronized (this) {
+            if (done) {
+                return;     // the other request already answered
+            }
+            inFlight.remove(request);
+            if (retryable && !inFlight.isEmpty()) {
+                return;     // the other request may still succeed
+            }
+            retry = retryable && retries < policy.getMaxRetries();
+            if (retry) {
+                retries++;
+            } else {
+                done = true;
+            }
+        }
+
+        if (retry) {
+            if (metrics != null) {
+                metrics.recordRetry();
+            }
+            long backoff = policy.backoffMillis(retries, ThreadLocalRandom.current().nextDouble());
+            Scheduler.INSTANCE.schedule(() -> attempt(false), backoff, TimeUnit.MILLISECONDS);
+        } else if (error != null) {
+            // the hedged twin cannot save the page any more, so release its connection
+            cancelInFlight();
+            result.completeExceptionally(error);
+        } else {
+            if (!retryable) {
+                long nanos = System.nanoTime() - start;
+                latencies.record(nanos);
+                if (metrics != null) {
+                    metrics.recordRoundTrip(nanos);
+                }
+            }
+            statusCode = status;
+            cancelInFlight();
+            result.complete(response);
+        }
+    }
+
+    private void cancelInFlight() {
+        List<ListenableFuture<Response>> requests;
+        synchronized (this) {
+            requests = new ArrayList<>(inFlight);
+            inFlight.clear();
+        }
+        requests.forEach(request -> request.cancel(true));
+    }
+
+    static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Timer of the retries and the hedges, shared by all the fetches.  The tasks only send requests, which does not
+     * block, so a single daemon thread is enough.
+     */
+    private static final class Scheduler {
+        static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "page-fetch-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.bench.service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Policy of the requests of each page: timeout, retries with a jittered exponential backoff, and hedging.
+ *
+ * A page is requested again when the response is a 5xx, or when the request failed to connect, was closed or timed
+ * out.  Other responses, such as the 404 past the last page, are handled by the caller as they are.  The policy is
+ * read while requesting, so it is configured before it is used.
+ *
+ * Created by dlee.
+ */
+public class RequestPolicy {
+    public static final int DEFAULT_REQUEST_TIMEOUT_MILLIS = 30000;
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 2000;
+
+    private int requestTimeoutMillis = DEFAULT_REQUEST_TIMEOUT_MILLIS;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+    private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+    private double hedgePercentile;
+
+    /**
+     * @param requestTimeoutMillis How long a single request may take before it fails, 0 for the timeout of the HTTP
+     *                             client.
+     */
+    public void setRequestTimeoutMillis(int requestTimeoutMillis) {
+        if (requestTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Request timeout cannot be negative.");
+        }
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    public int getRequestTimeoutMillis() {
+        return requestTimeoutMillis;
+    }
+
+    /**
+     * @param maxRetries Number of times a page is requested again after a failure, 0 to fail on the first one.
+     */
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Max retries cannot be negative.");
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param initialBackoffMillis Upper bound of the wait before the first retry, doubled for each following retry.
+     * @param maxBackoffMillis     Upper bound of the wait before any retry.
+     */
+    public void setBackoffMillis(long initialBackoffMillis, long maxBackoffMillis) {
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Backoff must be positive and the max at least the initial backoff.");
+        }
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @param hedgePercentile Percentile, between 0 and 1 exclusive, of the latency of the recent pages beyond which a
+     *                        duplicate request is sent for a page, the first response being used.  0, the default,
+     *                        disables hedging.
+     */
+    public void setHedgePercentile(double hedgePercentile) {
+        if (hedgePercentile < 0 || hedgePercentile >= 1) {
+            throw new IllegalArgumentException("Hedge percentile must be between 0 inclusive and 1 exclusive.");
+        }
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public boolean isHedging() {
+        return hedgePercentile > 0;
+    }
+
+    /**
+     * Computes the wait before a retry with full jitter: a uniform wait between 0 and the exponential backoff, so the
+     * retries of the pages failed together are spread out.
+     *
+     * @param retry  The retry, from 1.
+     * @param random A uniform value in [0, 1).
+     * @return The wait in milliseconds.
+     */
+    long backoffMillis(int retry, double random) {
+        long bound = initialBackoffMillis << Math.min(retry - 1, 30);
+        if (bound > maxBackoffMillis || bound < 0) {
+            bound = maxBackoffMillis;
+        }
+        return (long) (bound * random);
+    }
+
+    boolean isRetryable(int statusCode) {
+        return statusCode >= 500 && statusCode < 600;
+    }
+
+    boolean isRetryable(Throwable error) {
+        return error instanceof IOException || error instanceof TimeoutException;
+    }
+}
@@ -0,0 +1,269 @@
+package com.bench.service;
+
+import com.bench.model.PageSummary;
+import com.bench.model.Transaction;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Publisher of the transactions of all the pages, in page order, requesting the pages as the subscriber asks for
+ * transactions.  Pages are requested ahead only to cover the outstanding demand, up to the limit of requests in flight,
+ * so a slow subscriber slows down the page requests instead of buffering the feed.
+ *
+ * Each subscriber retrieves the pages from the first one.  The signals are sent from the thread requesting more
+ * transactions or from the common fork-join pool once a page arrives, never from an I/O thread of the HTTP client.
+ *
+ * Created by dlee.
+ */
+final class TransactionPublisher implements Publisher<Transaction> {
+    private final TransactionService service;
+    private final int maxConcurrentRequests;
+    private volatile long totalCount = -1;
+
+    TransactionPublisher(TransactionService service, int maxConcurrentRequests) {
+        this.service = service;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @return The total count of the feed given by the first page of the latest subscription, -1 before any first page
+     * was parsed.
+     */
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Transaction> subscriber) {
+        Objects.requireNonNull(subscriber, "Cannot be NULL.");
+        subscriber.onSubscribe(new PageSubscription(subscriber));
+    }
+
+    /**
+     * The retrieval for one subscriber.  Its state is only touched by the drain loop, which a single thread runs at a
+     * time; the other threads only add demand, cancel, or signal a page arrived, then run the loop if it is idle.
+     */
+    private final class PageSubscription implements Subscription {
+        private final Subscriber<? super Transaction> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        // only accessed by the drain loop
+        private final Queue<PendingPage> inFlight = new ArrayDeque<>();
+        private final ArrayDeque<Transaction> buffer = new ArrayDeque<>();
+        private final Consumer<Transaction> bufferAdd = buffer::add;
+        private int nextPage = 1;
+        private int lastPage = -1;      // unknown until the first page is parsed
+        private int pageSize;
+        private boolean done;
+
+        PageSubscription(Subscriber<? super Transaction> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Number of transactions requested must be positive.");
+            } else {
+                requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;     // the running loop picks up the change
+            }
+            int missed = 1;
+            do {
+                drainLoop();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainLoop() {
+            while (!done) {
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    terminate();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+
+                // emit the transactions already parsed, up to the demand
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !buffer.isEmpty() && !cancelled) {
+                    subscriber.onNext(buffer.poll());
+                    emitted++;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    continue;
+                }
+
+                try {
+                    if (buffer.isEmpty()) {
+                        PendingPage head = inFlight.peek();
+                        if (head != null && head.body.isDone()) {
+                            inFlight.poll();
+                            parse(head);
+                            continue;
+                        }
+                        if (head == null && lastPage >= 0 && nextPage > lastPage) {
+                            terminate();
+                            subscriber.onComplete();
+                            return;
+                        }
+                    }
+                    requestPages();
+                } catch (Throwable e) {
+                    terminate();
+                    subscriber.onError(PageFetch.unwrap(e));
+                    return;
+                }
+
+                // loop again only for a page that arrived already, e.g. from the cache
+                PendingPage head = inFlight.peek();
+                if (!buffer.isEmpty() || head == null || !head.body.isDone() || requested.get() == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void parse(PendingPage pending) throws Exception {
+            PageSummary summary = service.parsePage(pending.body.join(), bufferAdd);
+            if (pending.page == 1) {
+                lastPage = TransactionService.lastPageOf(summary);
+                pageSize = summary.getTransactionCount();
+                totalCount = summary.getTotalCount();
+            }
+        }
+
+        /**
+         * Requests the pages needed to cover the demand not covered by the parsed transactions, up to the limit of
+         * requests in flight.
+         */
+        private void requestPages() {
+            long demand = requested.get() - buffer.size();
+            if (demand <= 0) {
+                return;
+            }
+            if (lastPage < 0) {
+                // the first page tells how many pages there are
+                if (nextPage == 1) {
+                    send(nextPage++);
+                }
+                return;
+            }
+            long pagesNeeded = pageSize == 0 ? 1 : demand / pageSize + (demand % pageSize == 0 ? 0 : 1);
+            long limit = Math.min(maxConcurrentRequests, pagesNeeded);
+            while (nextPage <= lastPage && inFlight.size() < limit) {
+                send(nextPage++);
+            }
+        }
+
+        private void send(int page) {
+            TransactionService.PageRequest request = service.requestPage(page);
+            CompletableFuture<byte[]> body = service.readBodyAsync(request);
+            inFlight.add(new PendingPage(page, request, body));
+            body.whenCompleteAsync((b, e) -> drain());
+        }
+
+        private void terminate() {
+            done = true;
+            inFlight.forEach(pending -> pending.request.cancel());
+            inFlight.clear();
+            buffer.clear();
+        }
+    }
+
+    private static final class PendingPage {
+        private final int page;
+        private final TransactionService.PageRequest request;
+        private final CompletableFuture<byte[]> body;
+
+        PendingPage(int page, TransactionService.PageRequest request, CompletableFuture<byte[]> body) {
+            this.page = page;
+            this.request = request;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Subscriber handing the transactions to a consumer with an unbounded demand, completing a future at the end.
+     */
+    static final class ConsumerSubscriber implements Subscriber<Transaction> {
+        private final Consumer<? super Transaction> consumer;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private Subscription subscription;
+
+        ConsumerSubscriber(Consumer<? super Transaction> consumer) {
+            this.consumer = consumer;
+        }
+
+        /**
+         * @return Completed once all the transactions are consumed.  Cancelling it cancels the subscription.
+         */
+        CompletableFuture<Void> getResult() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            result.whenComplete((v, e) -> {
+                if (result.isCancelled()) {
+                    subscription.cancel();
+                }
+            });
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Transaction transaction) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                consumer.accept(transaction);
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            result.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(null);
+        }
+    }
+}
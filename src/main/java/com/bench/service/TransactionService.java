@@ -1,14 +1,42 @@
 package com.bench.service;
 
+import com.bench.aggregate.DailyTotalAggregator;
+import com.bench.aggregate.GroupedAggregator;
+import com.bench.aggregate.ParallelAggregator;
+import com.bench.cache.CachedPage;
+import com.bench.cache.Checkpoint;
+import com.bench.cache.CheckpointStore;
+import com.bench.cache.PageCache;
+import com.bench.dedup.DedupReport;
+import com.bench.dedup.FingerprintSet;
+import com.bench.dedup.TransactionDeduplicator;
+import com.bench.metrics.TransactionMetrics;
+import com.bench.model.Amounts;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.PageSummary;
 import com.bench.model.Transaction;
-import com.bench.model.TransactionPage;
+import com.bench.model.TransactionColumns;
+import com.bench.model.TransactionPageReader;
+import com.bench.spill.SpillFile;
+import com.bench.spill.SpillWriter;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaders;
 import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.Response;
+import org.reactivestreams.Publisher;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 
 /**
@@ -17,48 +45,523 @@ import java.util.*;
  * Created by dlee.
  */
 public class TransactionService {
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+    public static final String DEFAULT_BASE_URL = "http://resttest.bench.co";
+
     private AsyncHttpClient httpClient;
-    private ObjectMapper om;
+    private TransactionPageReader pageReader;
+    private int maxConcurrentRequests;
+    private String baseUrl = DEFAULT_BASE_URL;
+    private RequestPolicy requestPolicy = new RequestPolicy();
+    private final LatencyWindow latencies = new LatencyWindow();
+    private TransactionMetrics metrics;
+    private PageCache pageCache;
+    private CheckpointStore checkpointStore;
+    private Supplier<? extends FingerprintSet> fingerprints;
+    private volatile DedupReport lastDedupReport;
 
     public TransactionService(AsyncHttpClient httpClient, ObjectMapper om) {
+        this(httpClient, om, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    /**
+     * @param maxConcurrentRequests Maximum number of page requests in flight at once.  A value of 1 fetches the pages
+     *                              one after another.
+     */
+    public TransactionService(AsyncHttpClient httpClient, ObjectMapper om, int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("Max concurrent requests must be at least 1.");
+        }
         this.httpClient = httpClient;
-        this.om = om;
+        this.pageReader = new TransactionPageReader(om);
+        this.maxConcurrentRequests = maxConcurrentRequests;
     }
 
     /**
-     * Makes multiple request to the API to retrieve the list of transactions.  Each API response returns a set of
-     * transactions, so it'll make multiple calls until the number of transactions received matches the expected
-     * total count value.
+     * @param baseUrl Base URL of the API, the pages being requested from {@code <base URL>/transactions/<page>.json}.
+     *                {@link #DEFAULT_BASE_URL} by default.
+     */
+    public void setBaseUrl(String baseUrl) {
+        Objects.requireNonNull(baseUrl, "Cannot be NULL.");
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * @param requestPolicy Policy of the timeout, retries and hedging of the page requests, a {@link RequestPolicy}
+     *                      with its defaults by default.
+     */
+    public void setRequestPolicy(RequestPolicy requestPolicy) {
+        Objects.requireNonNull(requestPolicy, "Cannot be NULL.");
+        this.requestPolicy = requestPolicy;
+    }
+
+    /**
+     * @param metrics Metrics recording the requests, parsing and aggregations, NULL to record nothing, the default.
+     */
+    public void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param pageCache Cache of the page bodies to revalidate instead of downloading them again, NULL to bypass the
+     *                  cache.
+     */
+    public void setPageCache(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * @param checkpointStore Store of the checkpoint used by {@link #syncDailyBalances()}, NULL to always rebuild the
+     *                        balances.
+     */
+    public void setCheckpointStore(CheckpointStore checkpointStore) {
+        this.checkpointStore = checkpointStore;
+    }
+
+    /**
+     * @param fingerprints Supplies the set of fingerprints of each retrieval, so the repeats of a transaction already
+     *                     retrieved are rejected, e.g. the transactions shifting onto the next page while the pages are
+     *                     retrieved.  NULL to keep all the transactions, the default.
+     * @see TransactionDeduplicator
+     */
+    public void setFingerprints(Supplier<? extends FingerprintSet> fingerprints) {
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * @return The counts of the last retrieval that rejected the repeats, against the total count of the feed, NULL if
+     * none did.  An asynchronous retrieval is reported once it completes.
+     */
+    public DedupReport getLastDedupReport() {
+        return lastDedupReport;
+    }
+
+    /**
+     * Makes multiple request to the API to retrieve the list of transactions.  The first page is requested on its own
+     * to learn the expected total count and the page size, then the remaining pages are requested concurrently, up to
+     * the configured number of requests in flight.  Pages are collected in page order, so the transactions are
+     * returned in the same order as a page by page retrieval.  Each page is requested under the request policy, so a
+     * failed request is retried and a slow one may be hedged.
      *
      * @return List of transactions collected.
      * @throws Exception If the API request failed for any reasons.
      */
     public List<Transaction> getAllTransactions() throws Exception {
         List<Transaction> transactions = new ArrayList<>();
-        boolean done = false;
-        int page = 1;
-
-        // make request until status is not 200 or retrieve the expected total count
-        do {
-            String endpoint = String.format("http://resttest.bench.co/transactions/%s.json", page);
-            Response response = httpClient.prepareGet(endpoint).execute().get();
-
-            // determine if request was successful
-            if (response.getStatusCode() == 200) {
-                TransactionPage tr = om.readValue(response.getResponseBody(), TransactionPage.class);
-                transactions.addAll(tr.getTransactions());
-
-                // determine if retrieved the expected total count
-                if (transactions.size() >= tr.getTotalCount()) {
-                    done = true;
+        forEachTransaction(transactions::add);
+        return transactions;
+    }
+
+    /**
+     * Retrieves the transactions the same way as {@link #getAllTransactions()}, but stores them in columns of
+     * primitives instead of one object per transaction.
+     *
+     * @return Columns of the transactions collected.
+     * @throws Exception If the API request failed for any reasons.
+     */
+    public TransactionColumns getAllTransactionColumns() throws Exception {
+        TransactionColumns columns = new TransactionColumns();
+        forEachTransaction(columns);
+        return columns;
+    }
+
+    /**
+     * Retrieves the transactions the same way as {@link #getAllTransactions()}, but appends them to a memory-mapped
+     * spill file instead of the heap, for feeds too large to hold in memory.  The file can be opened again with
+     * {@link SpillFile#open(Path)} on later runs instead of retrieving the transactions.
+     *
+     * @param file The spill file, replaced only once all the transactions were retrieved.
+     * @return The spill file, mapped.
+     * @throws Exception If the API request failed for any reasons.
+     */
+    public SpillFile spillAllTransactions(Path file) throws Exception {
+        try (SpillWriter writer = new SpillWriter(file)) {
+            forEachTransaction(writer);
+            writer.commit();
+        }
+        return SpillFile.open(file);
+    }
+
+    /**
+     * Retrieves the transactions the same way as {@link #getAllTransactions()}, but hands each transaction to the
+     * consumer as soon as it is parsed from the response body instead of collecting them.  The consumer is called from
+     * the calling thread, in page order.
+     *
+     * @param consumer Receives each transaction retrieved.
+     * @throws Exception If the API request failed for any reasons.
+     */
+    public void forEachTransaction(Consumer<? super Transaction> consumer) throws Exception {
+        TransactionDeduplicator deduplicator = deduplicatorOf(consumer);
+        Consumer<? super Transaction> target = deduplicator == null ? consumer : deduplicator;
+        PageSummary firstPage = readPage(requestPage(1), target);
+        forEachTransaction(2, lastPageOf(firstPage), target, page -> { });
+        reportDuplicates(deduplicator, firstPage.getTotalCount());
+    }
+
+    /**
+     * Retrieves the transactions the same way as {@link #getAllTransactions()} without blocking the calling thread.
+     *
+     * @return Completed with the list of transactions collected, or exceptionally if the API request failed for any
+     * reasons.
+     */
+    public CompletableFuture<List<Transaction>> getAllTransactionsAsync() {
+        List<Transaction> transactions = new ArrayList<>();
+        return forEachTransactionAsync(transactions::add).thenApply(v -> transactions);
+    }
+
+    /**
+     * Hands each transaction to the consumer the same way as {@link #forEachTransaction(Consumer)} without blocking the
+     * calling thread.  The consumer is called from one thread at a time, in page order.
+     *
+     * @param consumer Receives each transaction retrieved.
+     * @return Completed once all the transactions are consumed, or exceptionally if the API request or the consumer
+     * failed.  Cancelling it stops the retrieval.
+     */
+    public CompletableFuture<Void> forEachTransactionAsync(Consumer<? super Transaction> consumer) {
+        TransactionDeduplicator deduplicator = deduplicatorOf(consumer);
+        TransactionPublisher.ConsumerSubscriber subscriber = new TransactionPublisher.ConsumerSubscriber(deduplicator == null ? consumer : deduplicator);
+        TransactionPublisher publisher = new TransactionPublisher(this, maxConcurrentRequests);
+        publisher.subscribe(subscriber);
+        if (deduplicator == null) {
+            return subscriber.getResult();
+        }
+        return subscriber.getResult().thenRun(() -> reportDuplicates(deduplicator, publisher.getTotalCount()));
+    }
+
+    /**
+     * Calculates the running daily balances of all the transactions as the pages arrive, without blocking the calling
+     * thread.  Unlike {@link #syncDailyBalances()}, the checkpoint is neither used nor saved.
+     *
+     * @return Completed with the running daily balances, or exceptionally if the API request failed for any reasons.
+     */
+    public CompletableFuture<DailyBalanceSeries> calculateDailyBalancesAsync() {
+        DailyTotalAggregator dailyTotals = new DailyTotalAggregator();
+        return forEachTransactionAsync(dailyTotals).thenApply(v -> {
+            long start = startTimer();
+            DailyBalanceSeries balances = dailyTotals.getDailyBalances();
+            recordAggregation(start);
+            return balances;
+        });
+    }
+
+    /**
+     * Publishes the transactions of all the pages in page order, requesting the pages as the subscriber asks for
+     * transactions: pages are requested ahead only to cover the outstanding demand, up to the configured number of
+     * requests in flight, so a slow subscriber throttles the requests.  Each subscriber retrieves the pages from the
+     * first one.
+     *
+     * @return Publisher of the transactions.
+     */
+    public Publisher<Transaction> publishTransactions() {
+        return new TransactionPublisher(this, maxConcurrentRequests);
+    }
+
+    /**
+     * Calculates the running daily balances of all the transactions, resuming from the checkpoint of the previous run
+     * when there is one.  The first page is requested to learn the current total count, then only the pages past the
+     * checkpoint are requested and their transactions extend the balances of the checkpoint.  The balances are rebuilt
+     * from all the pages when there is no checkpoint, or when the first page shows the feed is no longer an append only
+     * extension of the checkpoint (different page size or a lower total count).
+     *
+     * A new checkpoint is saved at the last full page, since a partial last page may still grow.
+     *
+     * @return The running daily balances of all the transactions.
+     * @throws Exception If the API request failed for any reasons.
+     */
+    public DailyBalanceSeries syncDailyBalances() throws Exception {
+        // keep the transactions of the first page until knowing if the balances are rebuilt
+        List<Transaction> firstPageTransactions = new ArrayList<>();
+        PageSummary firstPage = readPage(requestPage(1), firstPageTransactions::add);
+        String feed = endpointOf(1);
+        int lastPage = lastPageOf(firstPage);
+        int pageSize = firstPage.getTransactionCount();
+
+        Checkpoint checkpoint = checkpointStore == null ? null : checkpointStore.load();
+        DailyTotalAggregator dailyTotals = new DailyTotalAggregator();
+        TransactionDeduplicator deduplicator = deduplicatorOf(dailyTotals);
+        Consumer<? super Transaction> target = deduplicator == null ? dailyTotals : deduplicator;
+        int fromPage;
+        int firstPageRetrieved;
+        if (checkpoint != null && checkpoint.canResume(feed, firstPage)) {
+            dailyTotals.addDailyBalances(checkpoint.getDailyBalances());
+            fromPage = checkpoint.getLastPage() + 1;
+            firstPageRetrieved = fromPage;
+        } else {
+            firstPageTransactions.forEach(target);
+            fromPage = 2;
+            firstPageRetrieved = 1;
+        }
+
+        // take the next checkpoint once the last full page is consumed
+        int lastFullPage = pageSize == 0 ? 0 : firstPage.getTotalCount() / pageSize;
+        Checkpoint[] next = new Checkpoint[1];
+        IntConsumer takeCheckpoint = page -> {
+            if (page == lastFullPage) {
+                DailyBalanceSeries balances = dailyTotals.getDailyBalances();
+                next[0] = new Checkpoint(feed, pageSize, page, firstPage.getTotalCount(), balances.getLastBalanceMinorUnits(), balances);
+            }
+        };
+        takeCheckpoint.accept(fromPage - 1);
+        forEachTransaction(fromPage, lastPage, target, takeCheckpoint);
+        // the repeats are only rejected within the pages retrieved, not against the pages of the checkpoint
+        reportDuplicates(deduplicator, Math.max(0, firstPage.getTotalCount() - (long) (firstPageRetrieved - 1) * pageSize));
+
+        if (checkpointStore != null && next[0] != null) {
+            checkpointStore.save(next[0]);
+        }
+        long start = startTimer();
+        DailyBalanceSeries balances = dailyTotals.getDailyBalances();
+        recordAggregation(start);
+        return balances;
+    }
+
+    private TransactionDeduplicator deduplicatorOf(Consumer<? super Transaction> consumer) {
+        return fingerprints == null ? null : new TransactionDeduplicator(consumer, fingerprints.get());
+    }
+
+    private void reportDuplicates(TransactionDeduplicator deduplicator, long expectedCount) {
+        if (deduplicator == null) {
+            return;
+        }
+        DedupReport report = deduplicator.report(expectedCount);
+        lastDedupReport = report;
+        if (metrics != null) {
+            metrics.recordDuplicates(report.getDuplicateCount());
+            if (report.isCountMismatch()) {
+                metrics.recordCountMismatch();
+            }
+        }
+    }
+
+    /**
+     * Determines the last page from the first page, assuming all the pages but the last are the size of the first.
+     */
+    static int lastPageOf(PageSummary firstPage) throws IOException {
+        // determine if retrieved the expected total count
+        if (firstPage.getTransactionCount() >= firstPage.getTotalCount()) {
+            return 1;
+        }
+        int pageSize = firstPage.getTransactionCount();
+        if (pageSize == 0) {
+            throw new IOException("Unable to retrieve transactions from API.");
+        }
+        return (firstPage.getTotalCount() + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Requests a range of pages concurrently and hands their transactions to the consumer in page order.  The
+     * retrieval fails as soon as any page in flight fails, without waiting for the pages before it.
+     *
+     * @param fromPage     The first page to request.
+     * @param lastPage     The last page to request, inclusive.
+     * @param consumer     Receives each transaction retrieved.
+     * @param pageConsumed Receives the number of each page once all its transactions are consumed.
+     */
+    private void forEachTransaction(int fromPage, int lastPage, Consumer<? super Transaction> consumer, IntConsumer pageConsumed) throws Exception {
+        // keep up to the in-flight limit of requests outstanding and collect the oldest first to keep the page order
+        Deque<PageRequest> inFlight = new ArrayDeque<>();
+        CompletableFuture<Void> failure = new CompletableFuture<>();
+        int nextPage = fromPage;
+        try {
+            while (nextPage <= lastPage || !inFlight.isEmpty()) {
+                while (nextPage <= lastPage && inFlight.size() < maxConcurrentRequests) {
+                    PageRequest request = requestPage(nextPage++);
+                    request.reportFailure(failure);
+                    inFlight.add(request);
                 }
-                page++;
-            } else {
-                throw new IOException("Unable to retrieve transactions from API.");
+                // left in flight until read, so a failure cancels it too
+                PageRequest request = inFlight.peek();
+                awaitPage(request, failure);
+                readPage(request, consumer);
+                inFlight.poll();
+                pageConsumed.accept(request.page);
             }
-        } while (!done);
+        } finally {
+            // only left with requests when failing, no need to wait for them
+            inFlight.forEach(PageRequest::cancel);
+        }
+    }
 
-        return transactions;
+    /**
+     * Waits for the response of a page, or for the failure of any page in flight, whichever comes first.
+     *
+     * @throws IOException        If another page was answered with an unexpected status.
+     * @throws ExecutionException If the request of another page failed.
+     */
+    private static void awaitPage(PageRequest request, CompletableFuture<Void> failure) throws Exception {
+        if (request.response == null) {
+            return;
+        }
+        try {
+            CompletableFuture.anyOf(request.response.future(), failure).get();
+        } catch (ExecutionException e) {
+            // either failed, the page itself is handled when reading it
+        }
+        if (request.response.future().isDone()) {
+            return;
+        }
+        Throwable error = failure.handle((v, e) -> e).join();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        throw new ExecutionException(error);
+    }
+
+    private String endpointOf(int page) {
+        return baseUrl + "/transactions/" + page + ".json";
+    }
+
+    PageRequest requestPage(int page) {
+        String endpoint = endpointOf(page);
+
+        // use the cached page as is while it is fresh, otherwise revalidate it with a conditional request
+        CachedPage cached = pageCache == null ? null : pageCache.get(endpoint);
+        if (cached != null && pageCache.isFresh(cached)) {
+            return new PageRequest(page, endpoint, cached, null);
+        }
+        BoundRequestBuilder request = httpClient.prepareGet(endpoint);
+        if (requestPolicy.getRequestTimeoutMillis() > 0) {
+            request.setRequestTimeout(requestPolicy.getRequestTimeoutMillis());
+        }
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                request.setHeader(HttpHeaders.Names.IF_NONE_MATCH, cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                request.setHeader(HttpHeaders.Names.IF_MODIFIED_SINCE, cached.getLastModified());
+            }
+        }
+        return new PageRequest(page, endpoint, cached, new PageFetch(request::execute, requestPolicy, latencies, metrics).start());
+    }
+
+    private PageSummary readPage(PageRequest request, Consumer<? super Transaction> consumer) throws Exception {
+        return parsePage(readBody(request), consumer);
+    }
+
+    /**
+     * Parses the body of a page, handing its transactions to the consumer.
+     */
+    PageSummary parsePage(byte[] body, Consumer<? super Transaction> consumer) throws IOException {
+        if (metrics == null) {
+            return pageReader.read(body, consumer);
+        }
+        long start = System.nanoTime();
+        PageSummary summary = pageReader.read(body, consumer);
+        metrics.recordParse(System.nanoTime() - start, summary.getTransactionCount());
+        return summary;
+    }
+
+    private byte[] readBody(PageRequest request) throws Exception {
+        if (request.response == null) {
+            return request.cached.getBody();
+        }
+        Response response = request.response.get();
+        return bodyOf(request, response, request.response.getStatusCode());
+    }
+
+    /**
+     * Reads the body of a page the same way as {@link #readBody(PageRequest)}, completing once the response arrives
+     * instead of waiting for it.  The body is read on the common fork-join pool, since it may write the page cache and
+     * must not hold an I/O thread of the HTTP client.
+     */
+    CompletableFuture<byte[]> readBodyAsync(PageRequest request) {
+        if (request.response == null) {
+            return CompletableFuture.completedFuture(request.cached.getBody());
+        }
+        return request.response.future().thenApplyAsync(response -> {
+            try {
+                return bodyOf(request, response, request.response.getStatusCode());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private byte[] bodyOf(PageRequest request, Response response, int statusCode) throws IOException {
+        // the cached page is still current
+        if (statusCode == 304 && request.cached != null) {
+            if (pageCache.hasMaxAge()) {
+                cachePage(request.endpoint, request.cached.getBody(), request.cached.getEtag(), request.cached.getLastModified());
+            }
+            return request.cached.getBody();
+        }
+
+        // determine if request was successful
+        if (statusCode != 200) {
+            throw new IOException("Unable to retrieve transactions from API.");
+        }
+        byte[] body = response.getResponseBodyAsBytes();
+        if (metrics != null) {
+            metrics.recordResponseBytes(body.length);
+        }
+        if (pageCache != null) {
+            cachePage(request.endpoint, body, response.getHeader(HttpHeaders.Names.ETAG), response.getHeader(HttpHeaders.Names.LAST_MODIFIED));
+        }
+        return body;
+    }
+
+    private long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    private void recordAggregation(long start) {
+        if (metrics != null) {
+            metrics.recordAggregation(System.nanoTime() - start);
+        }
+    }
+
+    private void cachePage(String endpoint, byte[] body, String etag, String lastModified) {
+        CachedPage page = new CachedPage(body, etag, lastModified, System.currentTimeMillis());
+        if (!page.hasValidator() && !pageCache.hasMaxAge()) {
+            return;     // could never be used
+        }
+        try {
+            pageCache.put(endpoint, page);
+        } catch (IOException e) {
+            // the cache is only an optimization, the page was retrieved
+        }
+    }
+
+    /**
+     * A page requested from the API, or served from the cache when the response is NULL.
+     */
+    static class PageRequest {
+        private final int page;
+        private final String endpoint;
+        private final CachedPage cached;
+        private final PageFetch response;
+
+        PageRequest(int page, String endpoint, CachedPage cached, PageFetch response) {
+            this.page = page;
+            this.endpoint = endpoint;
+            this.cached = cached;
+            this.response = response;
+        }
+
+        void cancel() {
+            if (response != null) {
+                response.cancel();
+            }
+        }
+
+        /**
+         * Completes the future exceptionally once the response fails or has a status the page cannot be read from.
+         */
+        void reportFailure(CompletableFuture<Void> failure) {
+            if (response == null) {
+                return;
+            }
+            response.future().whenComplete((r, error) -> {
+                if (error != null) {
+                    failure.completeExceptionally(PageFetch.unwrap(error));
+                    return;
+                }
+                int statusCode = response.getStatusCode();
+                if (statusCode != 200 && !(statusCode == 304 && cached != null)) {
+                    failure.completeExceptionally(new IOException("Unable to retrieve transactions from API."));
+                }
+            });
+        }
     }
 
     /**
@@ -68,7 +571,24 @@ public class TransactionService {
      * @return The total balance value.
      */
     public double calculateTotalBalance(List<Transaction> transactions) {
-        return transactions.stream().mapToDouble(Transaction::getAmount).sum();
+        long start = startTimer();
+        double total = transactions.stream().mapToDouble(Transaction::getAmount).sum();
+        recordAggregation(start);
+        return total;
+    }
+
+    /**
+     * Calculates the total balance by summing the amount value from each transaction, in minor units so the result
+     * does not depend on the order of the transactions.
+     *
+     * @param transactions Columns of transactions to calculate the total balance.
+     * @return The total balance value.
+     */
+    public double calculateTotalBalance(TransactionColumns transactions) {
+        long start = startTimer();
+        double total = Amounts.fromMinorUnits(transactions.sumMinorUnits());
+        recordAggregation(start);
+        return total;
     }
 
     /**
@@ -76,45 +596,197 @@ public class TransactionService {
      * The result will contain the day before the earliest date found from the list of transactions and any missing days
      * between the earliest and last dates from the list of transactions.
      *
+     * Each amount is rounded to the nearest cent before it is summed, so the balances are exact in cents; an amount
+     * with more than two decimals, e.g. 0.333, counts as its rounded value, e.g. 0.33.
+     *
      * @param transactions List of transactions to calculate the running daily balances.
      * @return The running daily balances.
      */
     public SortedMap<LocalDate, Double> calculateRunningDailyTotal(List<Transaction> transactions) {
-        // for each day, total the amount for that day
-        SortedMap<LocalDate, Double> runningTotalMap = new TreeMap<>();
-        transactions.forEach(t -> {
-            if (runningTotalMap.containsKey(t.getDate())) {
-                // update with new total amount for the day
-                double total = runningTotalMap.get(t.getDate());
-                runningTotalMap.put(t.getDate(), total + t.getAmount());
-            } else {
-                runningTotalMap.put(t.getDate(), t.getAmount());
-            }
-        });
+        return new TreeMap<>(calculateDailyBalances(transactions).asSortedMap());
+    }
 
-        // add start date entry and missing date entries between the start date entry and the last date entry found
-        if (!runningTotalMap.isEmpty()) {
-            LocalDate firstDate = runningTotalMap.firstKey();
-            LocalDate lastDate = runningTotalMap.lastKey();
+    /**
+     * Calculates the running daily balances the same way as {@link #calculateRunningDailyTotal(List)}.
+     *
+     * @param transactions Columns of transactions to calculate the running daily balances.
+     * @return The running daily balances.
+     */
+    public SortedMap<LocalDate, Double> calculateRunningDailyTotal(TransactionColumns transactions) {
+        return new TreeMap<>(calculateDailyBalances(transactions).asSortedMap());
+    }
 
-            LocalDate iteratorDate = firstDate.minusDays(1);    // add the start date
-            while (!iteratorDate.equals(lastDate)) {
-                if (!runningTotalMap.containsKey(iteratorDate)) {
-                    runningTotalMap.put(iteratorDate, 0d);  // missing date, add entry to total running map
-                }
-                iteratorDate = iteratorDate.plusDays(1);
-            }
+    /**
+     * Calculates the running daily balances into a dense series, summing the amounts of each day then tallying the
+     * running total in a single pass.  The time complexity is O(n + d) where d is the number of days covered.  The
+     * amounts are rounded to cents the same way as {@link #calculateRunningDailyTotal(List)}.
+     *
+     * @param transactions List of transactions to calculate the running daily balances.
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries calculateDailyBalances(List<Transaction> transactions) {
+        // for each day, total the amount for that day
+        long start = startTimer();
+        DailyTotalAggregator dailyTotals = new DailyTotalAggregator();
+        transactions.forEach(dailyTotals);
+        DailyBalanceSeries balances = dailyTotals.getDailyBalances();
+        recordAggregation(start);
+        return balances;
+    }
+
+    /**
+     * Calculates the running daily balances into a dense series, summing the amounts of each day with a sequential
+     * scan of the columns.
+     *
+     * @param transactions Columns of transactions to calculate the running daily balances.
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries calculateDailyBalances(TransactionColumns transactions) {
+        if (transactions.size() == 0) {
+            return DailyBalanceSeries.empty();
         }
 
-        // for each day, tally the running total amount
-        double runningTotalAmount = 0d;
-        for (Map.Entry<LocalDate, Double> entry : runningTotalMap.entrySet()) {
-            LocalDate date = entry.getKey();
-            Double amount = entry.getValue();
-            runningTotalMap.put(date, amount + runningTotalAmount);
-            runningTotalAmount += amount;
+        // one slot for the day before the earliest date, then one per day up to the last date
+        long start = startTimer();
+        int startDay = transactions.minEpochDay() - 1;
+        int days = transactions.maxEpochDay() - startDay + 1;
+        DailyBalanceSeries balances = DailyBalanceSeries.ofDailyTotals(startDay, transactions.sumMinorUnitsByDay(startDay, days));
+        recordAggregation(start);
+        return balances;
+    }
+
+    /**
+     * Calculates the totals and running daily balances of each ledger and each company in a single pass, rather than
+     * scanning the transactions once per breakdown.
+     *
+     * @param transactions List of transactions to group.
+     * @return The totals of the groups.
+     */
+    public GroupedAggregator calculateGroupedBalances(List<Transaction> transactions) {
+        long start = startTimer();
+        GroupedAggregator groups = new GroupedAggregator();
+        transactions.forEach(groups);
+        recordAggregation(start);
+        return groups;
+    }
+
+    /**
+     * Calculates the totals and running daily balances of each ledger and each company in a single pass over the
+     * columns.
+     *
+     * @param transactions Columns of transactions to group.
+     * @return The totals of the groups.
+     */
+    public GroupedAggregator calculateGroupedBalances(TransactionColumns transactions) {
+        long start = startTimer();
+        GroupedAggregator groups = new GroupedAggregator();
+        groups.addAll(transactions);
+        recordAggregation(start);
+        return groups;
+    }
+
+    /**
+     * Calculates the total balance the same way as {@link #calculateTotalBalance(TransactionColumns)}, scanning the
+     * mapped records of the spill file.
+     *
+     * @param transactions Spill file of transactions to calculate the total balance.
+     * @return The total balance value.
+     */
+    public double calculateTotalBalance(SpillFile transactions) {
+        long start = startTimer();
+        double total = Amounts.fromMinorUnits(transactions.sumMinorUnits());
+        recordAggregation(start);
+        return total;
+    }
+
+    /**
+     * Calculates the running daily balances the same way as {@link #calculateRunningDailyTotal(List)}.
+     *
+     * @param transactions Spill file of transactions to calculate the running daily balances.
+     * @return The running daily balances.
+     */
+    public SortedMap<LocalDate, Double> calculateRunningDailyTotal(SpillFile transactions) {
+        return new TreeMap<>(calculateDailyBalances(transactions).asSortedMap());
+    }
+
+    /**
+     * Calculates the running daily balances the same way as {@link #calculateDailyBalances(TransactionColumns)}, with a
+     * single scan of the mapped records of the spill file, whose header holds the earliest and last days.
+     *
+     * @param transactions Spill file of transactions to calculate the running daily balances.
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries calculateDailyBalances(SpillFile transactions) {
+        if (transactions.size() == 0) {
+            return DailyBalanceSeries.empty();
         }
 
-        return runningTotalMap;
+        // one slot for the day before the earliest date, then one per day up to the last date
+        long start = startTimer();
+        int startDay = transactions.minEpochDay() - 1;
+        int days = transactions.maxEpochDay() - startDay + 1;
+        DailyBalanceSeries balances = DailyBalanceSeries.ofDailyTotals(startDay, transactions.sumMinorUnitsByDay(startDay, days));
+        recordAggregation(start);
+        return balances;
+    }
+
+    /**
+     * Calculates the total balance the same way as {@link #calculateTotalBalance(TransactionColumns)}, splitting the
+     * transactions across the tasks of a fork-join pool.
+     *
+     * @param transactions Columns of transactions to calculate the total balance.
+     * @param pool         The pool running the calculation, e.g. {@link ForkJoinPool#commonPool()}.
+     * @return The total balance value.
+     */
+    public double calculateTotalBalance(TransactionColumns transactions, ForkJoinPool pool) {
+        long start = startTimer();
+        double total = Amounts.fromMinorUnits(new ParallelAggregator(pool).calculateTotalMinorUnits(transactions));
+        recordAggregation(start);
+        return total;
+    }
+
+    /**
+     * Calculates the total balance in minor units, splitting the transactions across the tasks of a fork-join pool.
+     * Unlike {@link #calculateTotalBalance(List)}, the result does not depend on the order of the transactions.
+     *
+     * @param transactions List of transactions to calculate the total balance.
+     * @param pool         The pool running the calculation, e.g. {@link ForkJoinPool#commonPool()}.
+     * @return The total balance value.
+     */
+    public double calculateTotalBalance(List<Transaction> transactions, ForkJoinPool pool) {
+        long start = startTimer();
+        double total = Amounts.fromMinorUnits(new ParallelAggregator(pool).calculateTotalMinorUnits(transactions));
+        recordAggregation(start);
+        return total;
+    }
+
+    /**
+     * Calculates the running daily balances the same way as {@link #calculateDailyBalances(TransactionColumns)},
+     * splitting the transactions across the tasks of a fork-join pool.
+     *
+     * @param transactions Columns of transactions to calculate the running daily balances.
+     * @param pool         The pool running the calculation, e.g. {@link ForkJoinPool#commonPool()}.
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries calculateDailyBalances(TransactionColumns transactions, ForkJoinPool pool) {
+        long start = startTimer();
+        DailyBalanceSeries balances = new ParallelAggregator(pool).calculateDailyBalances(transactions);
+        recordAggregation(start);
+        return balances;
+    }
+
+    /**
+     * Calculates the running daily balances the same way as {@link #calculateDailyBalances(List)}, splitting the
+     * transactions across the tasks of a fork-join pool.
+     *
+     * @param transactions List of transactions to calculate the running daily balances.
+     * @param pool         The pool running the calculation, e.g. {@link ForkJoinPool#commonPool()}.
+     * @return The running daily balances.
+     */
+    public DailyBalanceSeries calculateDailyBalances(List<Transaction> transactions, ForkJoinPool pool) {
+        long start = startTimer();
+        DailyBalanceSeries balances = new ParallelAggregator(pool).calculateDailyBalances(transactions);
+        recordAggregation(start);
+        return balances;
     }
 }
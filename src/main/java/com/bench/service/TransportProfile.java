@@ -0,0 +1,153 @@
+package com.bench.service;
+
+import com.bench.metrics.TransactionMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+
+/**
+ * Profile of the HTTP client retrieving the pages: compression, connection pooling and timeouts.
+ *
+ * With compression, the requests accept gzip and deflate and the client inflates the compressed bodies as they are
+ * read, so the pages arrive as before, at a fraction of the transfer size.  The connections are kept alive and pooled
+ * across the pages, and the buffers the responses are read into come from a pooled allocator rather than being
+ * allocated per read.  The profile is read when creating a client, so it is configured before.
+ *
+ * Created by dlee.
+ */
+public class TransportProfile {
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30000;
+    public static final int DEFAULT_POOLED_CONNECTION_IDLE_TIMEOUT_MILLIS = 60000;
+
+    private static final String BYTE_COUNTER = "byteCounter";
+
+    private boolean compression = true;
+    private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+    private int pooledConnectionIdleTimeoutMillis = DEFAULT_POOLED_CONNECTION_IDLE_TIMEOUT_MILLIS;
+    private int maxConnectionsPerHost = -1;
+
+    /**
+     * @param compression Whether the responses may be compressed, TRUE by default.
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * @param connectTimeoutMillis How long opening a connection may take before the request fails.
+     */
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        if (connectTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Connect timeout must be at least 1.");
+        }
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * @param readTimeoutMillis How long a connection may stay idle while waiting for a response before the request
+     *                          fails, unlike the request timeout of {@link RequestPolicy} bounding the whole request.
+     */
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        if (readTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Read timeout must be at least 1.");
+        }
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * @param pooledConnectionIdleTimeoutMillis How long an idle connection is kept in the pool for the next request.
+     */
+    public void setPooledConnectionIdleTimeoutMillis(int pooledConnectionIdleTimeoutMillis) {
+        if (pooledConnectionIdleTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Pooled connection idle timeout must be at least 1.");
+        }
+        this.pooledConnectionIdleTimeoutMillis = pooledConnectionIdleTimeoutMillis;
+    }
+
+    public int getPooledConnectionIdleTimeoutMillis() {
+        return pooledConnectionIdleTimeoutMillis;
+    }
+
+    /**
+     * @param maxConnectionsPerHost Maximum number of connections to a host, -1 for no limit, the default.  The client
+     *                              fails a request past the limit rather than queueing it.
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        if (maxConnectionsPerHost < 1 && maxConnectionsPerHost != -1) {
+            throw new IllegalArgumentException("Max connections per host must be at least 1, or -1 for no limit.");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * @param metrics Metrics recording the bytes read from the connections, NULL to record nothing.
+     * @return A client with this profile, to close once done.
+     */
+    public AsyncHttpClient createHttpClient(TransactionMetrics metrics) {
+        return new DefaultAsyncHttpClient(newConfig(metrics).build());
+    }
+
+    /**
+     * @param metrics Metrics recording the bytes read from the connections, NULL to record nothing.
+     * @return The configuration of a client with this profile, to adjust further before building it.
+     */
+    public DefaultAsyncHttpClientConfig.Builder newConfig(TransactionMetrics metrics) {
+        DefaultAsyncHttpClientConfig.Builder config = new DefaultAsyncHttpClientConfig.Builder()
+                .setCompressionEnforced(compression)
+                .setKeepAlive(true)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setReadTimeout(readTimeoutMillis)
+                .setPooledConnectionIdleTimeout(pooledConnectionIdleTimeoutMillis)
+                .setMaxConnectionsPerHost(maxConnectionsPerHost)
+                .setAllocator(PooledByteBufAllocator.DEFAULT);
+        if (metrics != null) {
+            // first in the pipeline, so it sees the bytes before they are decoded and inflated
+            ByteCounter counter = new ByteCounter(metrics);
+            config.setHttpAdditionalChannelInitializer(channel -> channel.pipeline().addFirst(BYTE_COUNTER, counter));
+        }
+        return config;
+    }
+
+    /**
+     * Records the bytes read from a connection, i.e. the transfer size of the responses including their headers.
+     */
+    @ChannelHandler.Sharable
+    static final class ByteCounter extends ChannelInboundHandlerAdapter {
+        private final TransactionMetrics metrics;
+
+        ByteCounter(TransactionMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof ByteBuf) {
+                metrics.recordTransferBytes(((ByteBuf) msg).readableBytes());
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.bench.spill;
+
+import com.bench.model.Amounts;
+import com.bench.model.StringDictionary;
+import com.bench.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * A spill file written by {@link SpillWriter}, read through read-only memory-mapped chunks so the calculations scan the
+ * records straight from the page cache, without parsing or allocating per transaction.  A file can be opened again on
+ * later runs as a local copy of the feed.
+ *
+ * The file is a header, then one 20-byte little-endian record per transaction: the epoch day as an int, the amount in
+ * minor units as a long, then the ledger and company codes as ints, followed by the ledger and company dictionaries.
+ *
+ * Created by dlee.
+ */
+public class SpillFile implements Closeable {
+    static final int MAGIC = 0x42545853;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 20;
+    static final int DEFAULT_RECORDS_PER_CHUNK = 1 << 22;
+
+    private final FileChannel channel;
+    private final long count;
+    private final int minEpochDay;
+    private final int maxEpochDay;
+    private final int recordsPerChunk;
+    private final ByteBuffer[] chunks;
+    private final StringDictionary ledgers;
+    private final StringDictionary companies;
+
+    private SpillFile(FileChannel channel, long count, int minEpochDay, int maxEpochDay, int recordsPerChunk,
+                      ByteBuffer[] chunks, StringDictionary ledgers, StringDictionary companies) {
+        this.channel = channel;
+        this.count = count;
+        this.minEpochDay = minEpochDay;
+        this.maxEpochDay = maxEpochDay;
+        this.recordsPerChunk = recordsPerChunk;
+        this.chunks = chunks;
+        this.ledgers = ledgers;
+        this.companies = companies;
+    }
+
+    /**
+     * @param file A spill file committed by a {@link SpillWriter}.
+     * @return The spill file, mapped.
+     * @throws IOException If the file is missing, or is not a complete spill file.
+     */
+    public static SpillFile open(Path file) throws IOException {
+        return open(file, DEFAULT_RECORDS_PER_CHUNK);
+    }
+
+    /**
+     * @param recordsPerChunk Number of records of each mapped chunk.
+     */
+    static SpillFile open(Path file, int recordsPerChunk) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a complete spill file: " + file);
+            }
+            long count = header.getLong();
+            long dictionaryOffset = header.getLong();
+            int minEpochDay = header.getInt();
+            int maxEpochDay = header.getInt();
+            if (count < 0 || dictionaryOffset != HEADER_BYTES + count * RECORD_BYTES || dictionaryOffset > channel.size()) {
+                throw new IOException("Not a complete spill file: " + file);
+            }
+
+            channel.position(dictionaryOffset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            StringDictionary ledgers = readDictionary(in);
+            StringDictionary companies = readDictionary(in);
+
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((count + recordsPerChunk - 1) / recordsPerChunk)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i * recordsPerChunk;
+                long records = Math.min(recordsPerChunk, count - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new SpillFile(channel, count, minEpochDay, maxEpochDay, recordsPerChunk, chunks, ledgers, companies);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of transactions.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return The earliest epoch day, {@link Integer#MAX_VALUE} if the file is empty.
+     */
+    public int minEpochDay() {
+        return minEpochDay;
+    }
+
+    /**
+     * @return The last epoch day, {@link Integer#MIN_VALUE} if the file is empty.
+     */
+    public int maxEpochDay() {
+        return maxEpochDay;
+    }
+
+    public StringDictionary getLedgers() {
+        return ledgers;
+    }
+
+    public StringDictionary getCompanies() {
+        return companies;
+    }
+
+    /**
+     * @return The sum of all the amounts, in minor units.
+     */
+    public long sumMinorUnits() {
+        long sum = 0;
+        for (ByteBuffer chunk : chunks) {
+            int end = chunk.limit();
+            for (int position = 4; position < end; position += RECORD_BYTES) {
+                sum += chunk.getLong(position);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Sums the amounts per day over a dense range of days, the same way as
+     * {@code TransactionColumns.sumMinorUnitsByDay}.
+     *
+     * @param firstEpochDay The epoch day of the first slot, must not be after {@link #minEpochDay()}.
+     * @param days          The number of slots, must cover {@link #maxEpochDay()}.
+     * @return The sum of the amounts of each day in minor units, indexed by the epoch day minus the first epoch day.
+     */
+    public long[] sumMinorUnitsByDay(int firstEpochDay, int days) {
+        long[] sums = new long[days];
+        for (ByteBuffer chunk : chunks) {
+            int end = chunk.limit();
+            for (int position = 0; position < end; position += RECORD_BYTES) {
+                sums[chunk.getInt(position) - firstEpochDay] += chunk.getLong(position + 4);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Hands each transaction to the consumer in the order it was written, e.g. to feed an aggregator on a later run
+     * without retrieving and parsing the pages again.
+     *
+     * @param consumer Receives each transaction, as a new object.
+     */
+    public void forEach(Consumer<? super Transaction> consumer) {
+        for (ByteBuffer chunk : chunks) {
+            int end = chunk.limit();
+            for (int position = 0; position < end; position += RECORD_BYTES) {
+                consumer.accept(transactionAt(chunk, position));
+            }
+        }
+    }
+
+    /**
+     * @param index The position of the transaction in the file.
+     * @return The transaction at the position, as a new object.
+     */
+    public Transaction getTransaction(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return transactionAt(chunks[(int) (index / recordsPerChunk)], (int) (index % recordsPerChunk) * RECORD_BYTES);
+    }
+
+    /**
+     * Closes the file.  The mapped chunks are released once they are garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Transaction transactionAt(ByteBuffer chunk, int position) {
+        return new Transaction(LocalDate.ofEpochDay(chunk.getInt(position)),
+                ledgers.decode(chunk.getInt(position + 12)),
+                Amounts.fromMinorUnits(chunk.getLong(position + 4)),
+                companies.decode(chunk.getInt(position + 16)));
+    }
+
+    private static StringDictionary readDictionary(DataInputStream in) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        int size = in.readInt();
+        for (int code = 0; code < size; code++) {
+            dictionary.encode(in.readBoolean() ? in.readUTF() : null);
+        }
+        return dictionary;
+    }
+}
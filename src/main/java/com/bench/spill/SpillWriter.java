@@ -0,0 +1,178 @@
+package com.bench.spill;
+
+import com.bench.cache.AtomicFiles;
+import com.bench.model.Amounts;
+import com.bench.model.StringDictionary;
+import com.bench.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Appends the transactions it is fed to a spill file as fixed-width records, written through a memory-mapped window of
+ * the file so the transactions are never held on the heap.  The ledger and company values are interned into
+ * dictionaries, written after the records once the feed is complete.
+ *
+ * The records go to a temporary file next to the target, which {@link #commit()} completes and moves over the target,
+ * so a failed feed never leaves a partial spill file to be reused.
+ *
+ * Created by dlee.
+ */
+public class SpillWriter implements Consumer<Transaction>, Closeable {
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final int recordsPerChunk;
+    private final StringDictionary ledgers = new StringDictionary();
+    private final StringDictionary companies = new StringDictionary();
+    private MappedByteBuffer window;
+    private long count;
+    private int minEpochDay = Integer.MAX_VALUE;
+    private int maxEpochDay = Integer.MIN_VALUE;
+    private boolean committed;
+
+    /**
+     * @param target The spill file, replaced once the writer is committed.
+     */
+    public SpillWriter(Path target) throws IOException {
+        this(target, SpillFile.DEFAULT_RECORDS_PER_CHUNK);
+    }
+
+    /**
+     * @param recordsPerChunk Number of records mapped at once.
+     */
+    SpillWriter(Path target, int recordsPerChunk) throws IOException {
+        if (recordsPerChunk < 1) {
+            throw new IllegalArgumentException("Records per chunk must be at least 1.");
+        }
+        this.target = target;
+        this.recordsPerChunk = recordsPerChunk;
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.temp = Files.createTempFile(parent, target.getFileName().toString(), AtomicFiles.TEMP_SUFFIX);
+        this.channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void accept(Transaction transaction) {
+        add(transaction.getDate(), transaction.getLedger(), transaction.getAmount(), transaction.getCompany());
+    }
+
+    /**
+     * Appends a transaction.
+     */
+    public void add(LocalDate date, String ledger, double amount, String company) {
+        if (committed) {
+            throw new IllegalStateException("Spill file already committed.");
+        }
+        if (window == null || !window.hasRemaining()) {
+            mapNextChunk();
+        }
+        int epochDay = Math.toIntExact(date.toEpochDay());
+        window.putInt(epochDay);
+        window.putLong(Amounts.toMinorUnits(amount));
+        window.putInt(ledgers.encode(ledger));
+        window.putInt(companies.encode(company));
+        minEpochDay = Math.min(minEpochDay, epochDay);
+        maxEpochDay = Math.max(maxEpochDay, epochDay);
+        count++;
+    }
+
+    /**
+     * @return The number of transactions appended so far.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Writes the dictionaries and the header after the records, then moves the file over the target.
+     *
+     * @throws IOException If the file could not be completed.
+     */
+    public void commit() throws IOException {
+        if (committed) {
+            return;
+        }
+        committed = true;
+        if (window != null) {
+            window.force();
+            window = null;
+        }
+
+        long dictionaryOffset = SpillFile.HEADER_BYTES + count * SpillFile.RECORD_BYTES;
+        channel.position(dictionaryOffset);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        writeDictionary(out, ledgers);
+        writeDictionary(out, companies);
+        out.flush();
+        channel.truncate(channel.position());
+
+        // the header goes last, so a file cut short has no valid header
+        ByteBuffer header = ByteBuffer.allocate(SpillFile.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(SpillFile.MAGIC);
+        header.putInt(SpillFile.VERSION);
+        header.putLong(count);
+        header.putLong(dictionaryOffset);
+        header.putInt(minEpochDay);
+        header.putInt(maxEpochDay);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        channel.close();
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Discards the temporary file unless the writer was committed.
+     */
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+        Files.deleteIfExists(temp);
+    }
+
+    private void mapNextChunk() {
+        long position = SpillFile.HEADER_BYTES + count * SpillFile.RECORD_BYTES;
+        try {
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) recordsPerChunk * SpillFile.RECORD_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeDictionary(DataOutputStream out, StringDictionary dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (int code = 0; code < dictionary.size(); code++) {
+            String value = dictionary.decode(code);
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.bench.aggregate;
+
+import com.bench.model.Amounts;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Unit test for BalanceIndex.
+ *
+ * Created by dlee.
+ */
+public class BalanceIndexTest {
+
+    @Test
+    public void testBalanceAsOf() throws Exception {
+        BalanceIndex index = new BalanceIndex();
+        index.add(new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A"));
+        index.add(new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B"));
+        index.add(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company C"));
+
+        Assert.assertEquals("Balance before the first date.", 0L, index.balanceMinorUnitsAsOf(LocalDate.of(1999, 12, 31)));
+        Assert.assertEquals("Balance incorrect.", 48950L, index.balanceMinorUnitsAsOf(LocalDate.of(2000, 1, 1)));
+        Assert.assertEquals("Balance incorrect.", 48950L, index.balanceMinorUnitsAsOf(LocalDate.of(2000, 1, 2)));
+        Assert.assertTrue("Balance incorrect.", Double.compare(388.95d, index.balanceAsOf(LocalDate.of(2000, 1, 3))) == 0);
+        Assert.assertEquals("Balance after the last date.", 38895L, index.balanceMinorUnitsAsOf(LocalDate.of(2100, 1, 1)));
+        Assert.assertEquals("Count incorrect.", 3, index.getCount());
+    }
+
+    @Test
+    public void testLateTransaction() throws Exception {
+        BalanceIndex index = new BalanceIndex();
+        index.add(new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A"));
+
+        // a correction dated long before the range, then one after it
+        index.add(new Transaction(LocalDate.of(1990, 6, 1), "Ledger X", 20, "Company A"));
+        index.add(new Transaction(LocalDate.of(2010, 6, 1), "Ledger X", 30, "Company A"));
+
+        Assert.assertEquals("First date incorrect.", LocalDate.of(1990, 6, 1), index.getFirstDate());
+        Assert.assertEquals("Last date incorrect.", LocalDate.of(2010, 6, 1), index.getLastDate());
+        Assert.assertEquals("Balance incorrect.", 2000L, index.balanceMinorUnitsAsOf(LocalDate.of(2000, 1, 2)));
+        Assert.assertEquals("Balance incorrect.", -8055L, index.balanceMinorUnitsAsOf(LocalDate.of(2000, 1, 3)));
+        Assert.assertEquals("Balance incorrect.", -5055L, index.balanceMinorUnitsAsOf(LocalDate.of(2010, 6, 1)));
+    }
+
+    @Test
+    public void testSumBetween() throws Exception {
+        BalanceIndex index = new BalanceIndex();
+        index.add(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 10, "Company A"));
+        index.add(new Transaction(LocalDate.of(2000, 1, 2), "Ledger X", 20, "Company A"));
+        index.add(new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", 40, "Company A"));
+
+        Assert.assertEquals("Sum incorrect.", 6000L, index.sumMinorUnitsBetween(LocalDate.of(2000, 1, 2), LocalDate.of(2000, 1, 3)));
+        Assert.assertTrue("Sum incorrect.", Double.compare(70d, index.sumBetween(LocalDate.of(1999, 1, 1), LocalDate.of(2001, 1, 1))) == 0);
+        Assert.assertEquals("Single day.", 2000L, index.sumMinorUnitsBetween(LocalDate.of(2000, 1, 2), LocalDate.of(2000, 1, 2)));
+        Assert.assertEquals("Empty range.", 0L, index.sumMinorUnitsBetween(LocalDate.of(2000, 1, 3), LocalDate.of(2000, 1, 1)));
+    }
+
+    @Test
+    public void testSameAsDailyTotalAggregator() throws Exception {
+        Random random = new Random(42);
+        BalanceIndex index = new BalanceIndex();
+        DailyTotalAggregator aggregator = new DailyTotalAggregator();
+        LocalDate start = LocalDate.of(2000, 1, 1);
+        for (int i = 0; i < 5000; i++) {
+            Transaction transaction = new Transaction(start.plusDays(random.nextInt(3000) - 1500), "Ledger X",
+                    (random.nextInt(200001) - 100000) / 100d, "Company A");
+            index.add(transaction);
+            aggregator.accept(transaction);
+        }
+
+        DailyBalanceSeries expected = aggregator.getDailyBalances();
+        Assert.assertEquals("Same running daily balances.", expected.asSortedMap(), index.getDailyBalances().asSortedMap());
+        for (int i = 0; i < expected.size(); i += 37) {
+            Assert.assertEquals("Same balance as of the day.", expected.getBalanceMinorUnits(i), index.balanceMinorUnitsAsOf(expected.getDate(i)));
+            Assert.assertEquals("Same daily total.", aggregator.getDailyTotalMinorUnits(expected.getDate(i)), index.getDailyTotalMinorUnits(expected.getDate(i)));
+        }
+    }
+
+    @Test
+    public void testAddDailyBalances() throws Exception {
+        DailyBalanceSeries balances = DailyBalanceSeries.ofDailyTotals(LocalDate.of(1999, 12, 31).toEpochDay(), new long[]{0, 48950, 0, -10055});
+        BalanceIndex index = new BalanceIndex();
+        index.addDailyBalances(balances);
+        index.add(LocalDate.of(2000, 1, 2).toEpochDay(), Amounts.toMinorUnits(1.05));
+
+        Assert.assertEquals("Balance incorrect.", 49055L, index.balanceMinorUnitsAsOf(LocalDate.of(2000, 1, 2)));
+        Assert.assertEquals("Total incorrect.", 39000L, index.getTotalMinorUnits());
+        Assert.assertEquals("Only the amount counted.", 1, index.getCount());
+    }
+
+    @Test
+    public void testWhenEmpty() throws Exception {
+        BalanceIndex index = new BalanceIndex();
+        Assert.assertNull("Expected no first date.", index.getFirstDate());
+        Assert.assertEquals("Expected no balance.", 0L, index.balanceMinorUnitsAsOf(LocalDate.of(2000, 1, 1)));
+        Assert.assertTrue("Expected empty series.", index.getDailyBalances().isEmpty());
+    }
+}
@@ -0,0 +1,72 @@
+package com.bench.aggregate;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Unit test for DailyTotalAggregator.
+ *
+ * Created by dlee.
+ */
+public class DailyTotalAggregatorTest {
+
+    @Test
+    public void testDailyTotals() throws Exception {
+        DailyTotalAggregator aggregator = new DailyTotalAggregator();
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A"));
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B"));
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company C"));
+
+        Assert.assertEquals("Daily total incorrect.", 48950L, aggregator.getDailyTotalMinorUnits(LocalDate.of(2000, 1, 1)));
+        Assert.assertEquals("Daily total incorrect.", 0L, aggregator.getDailyTotalMinorUnits(LocalDate.of(2000, 1, 2)));
+        Assert.assertEquals("Daily total incorrect.", -10055L, aggregator.getDailyTotalMinorUnits(LocalDate.of(2000, 1, 3)));
+        Assert.assertEquals("First date incorrect.", LocalDate.of(2000, 1, 1), aggregator.getFirstDate());
+        Assert.assertEquals("Last date incorrect.", LocalDate.of(2000, 1, 3), aggregator.getLastDate());
+    }
+
+    @Test
+    public void testRunningDailyTotal() throws Exception {
+        DailyTotalAggregator aggregator = new DailyTotalAggregator();
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A"));
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B"));
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company C"));
+
+        SortedMap<LocalDate, Double> expected = new TreeMap<>();
+        expected.put(LocalDate.of(1999, 12, 31), 0d);
+        expected.put(LocalDate.of(2000, 1, 1), 489.5d);
+        expected.put(LocalDate.of(2000, 1, 2), 489.5d);
+        expected.put(LocalDate.of(2000, 1, 3), 388.95d);
+
+        Assert.assertEquals("Running daily total incorrect.", expected, aggregator.getRunningDailyTotal());
+    }
+
+    @Test
+    public void testDailyBalancesWhenDatesSpreadBothWays() throws Exception {
+        DailyTotalAggregator aggregator = new DailyTotalAggregator();
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 10, "Company A"));
+        aggregator.accept(new Transaction(LocalDate.of(2010, 1, 1), "Ledger X", 20, "Company A"));
+        aggregator.accept(new Transaction(LocalDate.of(1990, 1, 1), "Ledger X", 30, "Company A"));
+
+        DailyBalanceSeries balances = aggregator.getDailyBalances();
+        Assert.assertEquals("First date incorrect.", LocalDate.of(1989, 12, 31), balances.getFirstDate());
+        Assert.assertEquals("Last date incorrect.", LocalDate.of(2010, 1, 1), balances.getLastDate());
+        Assert.assertTrue("Balance incorrect.", Double.compare(30d, balances.balanceOn(LocalDate.of(1999, 12, 31))) == 0);
+        Assert.assertTrue("Balance incorrect.", Double.compare(40d, balances.balanceOn(LocalDate.of(2000, 1, 1))) == 0);
+        Assert.assertTrue("Balance incorrect.", Double.compare(60d, balances.balanceOn(LocalDate.of(2010, 1, 1))) == 0);
+    }
+
+    @Test
+    public void testWhenNoTransactions() throws Exception {
+        DailyTotalAggregator aggregator = new DailyTotalAggregator();
+        Assert.assertNull("Expected no first date.", aggregator.getFirstDate());
+        Assert.assertNull("Expected no last date.", aggregator.getLastDate());
+        Assert.assertEquals("Expected empty map.", 0, aggregator.getRunningDailyTotal().size());
+        Assert.assertTrue("Expected empty series.", aggregator.getDailyBalances().isEmpty());
+    }
+}
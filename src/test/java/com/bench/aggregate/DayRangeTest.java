@@ -0,0 +1,42 @@
+package com.bench.aggregate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for DayRange class.
+ *
+ * Created by dlee.
+ */
+public class DayRangeTest {
+
+    @Test
+    public void testCoveringWithoutRange() throws Exception {
+        DayRange range = DayRange.covering(0, 0, 1000);
+        Assert.assertEquals("Centered on the day.", 1000 - 32, range.getFirstEpochDay());
+        Assert.assertEquals("Default capacity.", 64, range.copyOf(new long[0], 0).length);
+    }
+
+    @Test
+    public void testGrowsByAtLeastHalf() throws Exception {
+        DayRange after = DayRange.covering(100, 64, 164);
+        Assert.assertEquals("Same first day when growing after.", 100, after.getFirstEpochDay());
+        Assert.assertEquals("Grown by half.", 96, after.copyOf(new long[64], 100).length);
+
+        DayRange before = DayRange.covering(100, 64, 99);
+        Assert.assertEquals("First day moved by the growth.", 68, before.getFirstEpochDay());
+
+        DayRange far = DayRange.covering(100, 64, 1000);
+        Assert.assertEquals("Grown up to the day.", 901, far.copyOf(new long[64], 100).length);
+    }
+
+    @Test
+    public void testCopyKeepsTheDays() throws Exception {
+        long[] totals = {1, 2, 3, 4};
+        DayRange range = DayRange.covering(10, 4, 8);
+        long[] copy = range.copyOf(totals, 10);
+
+        Assert.assertEquals("First day.", 8, range.getFirstEpochDay());
+        Assert.assertArrayEquals("Totals at the index of their day.", new long[]{0, 0, 1, 2, 3, 4}, copy);
+    }
+}
@@ -0,0 +1,141 @@
+package com.bench.aggregate;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+import com.bench.model.TransactionColumns;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Unit test for GroupedAggregator.
+ *
+ * Created by dlee.
+ */
+public class GroupedAggregatorTest {
+    private static final List<Transaction> TRANSACTIONS = Arrays.asList(
+            new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A"),
+            new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B"),
+            new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company C"),
+            new Transaction(LocalDate.of(2000, 1, 5), "Ledger Y", -20, "Company A"),
+            new Transaction(LocalDate.of(2000, 1, 5), "Ledger X", -5.25, "Company B"));
+
+    @Test
+    public void testGroupTotals() throws Exception {
+        GroupedAggregator aggregator = new GroupedAggregator();
+        TRANSACTIONS.forEach(aggregator);
+
+        Assert.assertEquals("Total incorrect.", 36370L, aggregator.getTotalMinorUnits());
+        Assert.assertEquals("Count incorrect.", 5, aggregator.getCount());
+
+        GroupedAggregator.Groups ledgers = aggregator.getLedgers();
+        Assert.assertEquals("Ledgers in order of first appearance.", Arrays.asList("Ledger X", "Ledger Y"), ledgers.getNames());
+        Assert.assertEquals("Ledger total incorrect.", 39420L, ledgers.getTotalMinorUnits("Ledger X"));
+        Assert.assertEquals("Ledger total incorrect.", -3050L, ledgers.getTotalMinorUnits("Ledger Y"));
+        Assert.assertEquals("Ledger count incorrect.", 3, ledgers.getCount("Ledger X"));
+        Assert.assertEquals("Unknown ledger.", 0L, ledgers.getTotalMinorUnits("Ledger Z"));
+
+        GroupedAggregator.Groups companies = aggregator.getCompanies();
+        Assert.assertEquals("Company count incorrect.", 3, companies.size());
+        Assert.assertTrue("Company total incorrect.", Double.compare(-120.55, companies.getTotal("Company A")) == 0);
+        Assert.assertTrue("Company spending incorrect.", Double.compare(15.75, companies.getSpending("Company B")) == 0);
+        Assert.assertEquals("Company without spending.", 0L, companies.getSpendingMinorUnits("Company C"));
+    }
+
+    @Test
+    public void testGroupDailyBalances() throws Exception {
+        GroupedAggregator aggregator = new GroupedAggregator();
+        TRANSACTIONS.forEach(aggregator);
+
+        SortedMap<LocalDate, Double> expected = new TreeMap<>();
+        expected.put(LocalDate.of(1999, 12, 31), 0d);
+        expected.put(LocalDate.of(2000, 1, 1), 500d);
+        expected.put(LocalDate.of(2000, 1, 2), 500d);
+        expected.put(LocalDate.of(2000, 1, 3), 399.45d);
+        expected.put(LocalDate.of(2000, 1, 4), 399.45d);
+        expected.put(LocalDate.of(2000, 1, 5), 394.2d);
+        Assert.assertEquals("Ledger running daily balances incorrect.", expected,
+                aggregator.getLedgers().getDailyBalances("Ledger X").asSortedMap());
+
+        DailyBalanceSeries company = aggregator.getCompanies().getDailyBalances("Company A");
+        Assert.assertEquals("First date of the company.", LocalDate.of(2000, 1, 2), company.getFirstDate());
+        Assert.assertEquals("Last balance of the company.", -12055L, company.getLastBalanceMinorUnits());
+        Assert.assertTrue("Unknown company.", aggregator.getCompanies().getDailyBalances("Company Z").isEmpty());
+    }
+
+    @Test
+    public void testGroupDailyBalancesMatchUngrouped() throws Exception {
+        GroupedAggregator aggregator = new GroupedAggregator();
+        DailyTotalAggregator ledgerX = new DailyTotalAggregator();
+        for (int i = 0; i < 10000; i++) {
+            Transaction transaction = new Transaction(LocalDate.of(2000, 1, 1).plusDays(i % 365), "Ledger " + i % 7, i % 13 - 6.5, "Company " + i % 11);
+            aggregator.accept(transaction);
+            if (transaction.getLedger().equals("Ledger 3")) {
+                ledgerX.accept(transaction);
+            }
+        }
+        Assert.assertEquals("Same balances as aggregating the ledger alone.", ledgerX.getDailyBalances().asSortedMap(),
+                aggregator.getLedgers().getDailyBalances("Ledger 3").asSortedMap());
+    }
+
+    @Test
+    public void testAllDailyBalances() throws Exception {
+        GroupedAggregator aggregator = new GroupedAggregator();
+        for (int i = 0; i < 10000; i++) {
+            aggregator.accept(new Transaction(LocalDate.of(2000, 1, 1).plusDays(i % 365 * (i % 3)), "Ledger " + i % 7, i % 13 - 6.5, "Company " + i % 11));
+        }
+        GroupedAggregator.Groups ledgers = aggregator.getLedgers();
+        Map<String, DailyBalanceSeries> all = ledgers.getAllDailyBalances();
+
+        Assert.assertEquals("In order of first appearance.", ledgers.getNames(), new ArrayList<>(all.keySet()));
+        for (String name : ledgers.getNames()) {
+            Assert.assertEquals("Same balances as the group alone for " + name, ledgers.getDailyBalances(name).asSortedMap(),
+                    all.get(name).asSortedMap());
+        }
+    }
+
+    @Test
+    public void testTopSpenders() throws Exception {
+        GroupedAggregator aggregator = new GroupedAggregator();
+        TRANSACTIONS.forEach(aggregator);
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 6), "Ledger Y", -15.75, "Company D"));
+
+        GroupedAggregator.Groups companies = aggregator.getCompanies();
+        Assert.assertEquals("Largest spending first, ties in order of first appearance.",
+                Arrays.asList("Company A", "Company B", "Company D"), companies.getTopSpenders(10));
+        Assert.assertEquals("Top spenders only.", Arrays.asList("Company A", "Company B"), companies.getTopSpenders(2));
+        Assert.assertEquals("No spender.", Collections.emptyList(), companies.getTopSpenders(0));
+    }
+
+    @Test
+    public void testAddAllColumns() throws Exception {
+        TransactionColumns columns = new TransactionColumns();
+        TRANSACTIONS.forEach(columns);
+        GroupedAggregator fromColumns = new GroupedAggregator();
+        fromColumns.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", 1, "Company C"));
+        fromColumns.addAll(columns);
+
+        GroupedAggregator fromList = new GroupedAggregator();
+        fromList.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", 1, "Company C"));
+        TRANSACTIONS.forEach(fromList);
+
+        Assert.assertEquals("Count incorrect.", fromList.getCount(), fromColumns.getCount());
+        Assert.assertEquals("Ledger totals incorrect.", fromList.getLedgers().getTotals(), fromColumns.getLedgers().getTotals());
+        Assert.assertEquals("Company totals incorrect.", fromList.getCompanies().getTotals(), fromColumns.getCompanies().getTotals());
+        Assert.assertEquals("Company balances incorrect.", fromList.getCompanies().getDailyBalances("Company C").asSortedMap(),
+                fromColumns.getCompanies().getDailyBalances("Company C").asSortedMap());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopSpendersConstraints() throws Exception {
+        new GroupedAggregator().getCompanies().getTopSpenders(-1);
+    }
+}
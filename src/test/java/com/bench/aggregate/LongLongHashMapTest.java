@@ -0,0 +1,49 @@
+package com.bench.aggregate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit test for LongLongHashMap.
+ *
+ * Created by dlee.
+ */
+public class LongLongHashMapTest {
+
+    @Test
+    public void testAddTo() throws Exception {
+        LongLongHashMap map = new LongLongHashMap();
+        map.addTo(1, 10);
+        map.addTo(-1, 5);
+        map.addTo(1, -3);
+
+        Assert.assertEquals("Value incorrect.", 7L, map.get(1));
+        Assert.assertEquals("Value incorrect.", 5L, map.get(-1));
+        Assert.assertEquals("Missing key.", 0L, map.get(2));
+        Assert.assertEquals("Size incorrect.", 2, map.size());
+    }
+
+    @Test
+    public void testGrowsPastCapacity() throws Exception {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        for (long i = 0; i < 10000; i++) {
+            long key = (i % 3000) << 32 | i % 7;
+            map.addTo(key, i);
+            expected.merge(key, i, Long::sum);
+        }
+
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        Assert.assertEquals("Entries incorrect.", expected, actual);
+        Assert.assertEquals("Size incorrect.", expected.size(), map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeyConstraints() throws Exception {
+        new LongLongHashMap().addTo(Long.MIN_VALUE, 1);
+    }
+}
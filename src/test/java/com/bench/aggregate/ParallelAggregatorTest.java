@@ -0,0 +1,75 @@
+package com.bench.aggregate;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.Transaction;
+import com.bench.model.TransactionColumns;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit test for ParallelAggregator.
+ *
+ * Created by dlee.
+ */
+public class ParallelAggregatorTest {
+    private ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    private List<Transaction> transactions(int count) {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(1990, 1, 1);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double amount = (random.nextInt(2000000) - 1000000) / 100d;
+            transactions.add(new Transaction(start.plusDays(random.nextInt(10000)), "Ledger " + (i % 7), amount, "Company " + (i % 13)));
+        }
+        return transactions;
+    }
+
+    @Test
+    public void testMatchesSequentialAggregation() throws Exception {
+        List<Transaction> transactions = transactions(50000);
+        DailyTotalAggregator sequential = new DailyTotalAggregator();
+        transactions.forEach(sequential);
+        TransactionColumns columns = new TransactionColumns();
+        transactions.forEach(columns);
+
+        ParallelAggregator aggregator = new ParallelAggregator(pool);
+        DailyBalanceSeries expected = sequential.getDailyBalances();
+        Assert.assertEquals("Incorrect balances from list.", expected.asSortedMap(), aggregator.calculateDailyBalances(transactions).asSortedMap());
+        Assert.assertEquals("Incorrect balances from columns.", expected.asSortedMap(), aggregator.calculateDailyBalances(columns).asSortedMap());
+        Assert.assertEquals("Incorrect total from list.", expected.getLastBalanceMinorUnits(), aggregator.calculateTotalMinorUnits(transactions));
+        Assert.assertEquals("Incorrect total from columns.", columns.sumMinorUnits(), aggregator.calculateTotalMinorUnits(columns));
+    }
+
+    @Test
+    public void testIndependentOfOrder() throws Exception {
+        List<Transaction> transactions = transactions(20000);
+        ParallelAggregator aggregator = new ParallelAggregator(pool);
+        DailyBalanceSeries before = aggregator.calculateDailyBalances(transactions);
+        long totalBefore = aggregator.calculateTotalMinorUnits(transactions);
+
+        Collections.shuffle(transactions, new Random(7));
+        Assert.assertEquals("Expected same balances.", before.asSortedMap(), aggregator.calculateDailyBalances(transactions).asSortedMap());
+        Assert.assertEquals("Expected same total.", totalBefore, aggregator.calculateTotalMinorUnits(transactions));
+    }
+
+    @Test
+    public void testWhenNoTransactions() throws Exception {
+        ParallelAggregator aggregator = new ParallelAggregator();
+        Assert.assertTrue("Expected empty series.", aggregator.calculateDailyBalances(new TransactionColumns()).isEmpty());
+        Assert.assertEquals("Expected zero total.", 0L, aggregator.calculateTotalMinorUnits(new ArrayList<>()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.bench.aggregate;
+
+import com.bench.model.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+/**
+ * Unit test for TotalBalanceAggregator.
+ *
+ * Created by dlee.
+ */
+public class TotalBalanceAggregatorTest {
+
+    @Test
+    public void testTotalBalance() throws Exception {
+        TotalBalanceAggregator aggregator = new TotalBalanceAggregator();
+        aggregator.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", -100.55, "Company A"));
+        aggregator.accept(new Transaction(LocalDate.of(2013, 10, 10), "Ledger Y", -10.5, "Company B"));
+        aggregator.accept(new Transaction(LocalDate.of(2017, 3, 1), "Ledger X", 500, "Company C"));
+
+        Assert.assertTrue("Total balance incorrect.", Double.compare(388.95d, aggregator.getTotalBalance()) == 0);
+        Assert.assertEquals("Count incorrect.", 3, aggregator.getCount());
+    }
+
+    @Test
+    public void testTotalBalanceWhenNoTransactions() throws Exception {
+        Assert.assertTrue("Expected zero balance.", Double.compare(0d, new TotalBalanceAggregator().getTotalBalance()) == 0);
+    }
+}
@@ -0,0 +1,152 @@
+package com.bench.batch;
+
+import com.bench.model.Amounts;
+import com.bench.model.TransactionModule;
+import com.bench.server.SyntheticTransactionServer;
+import com.bench.service.RequestPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.asynchttpclient.AsyncHttpClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test for BatchRunner, running accounts served by synthetic servers.
+ *
+ * Created by dlee.
+ */
+public class BatchRunnerTest {
+    private AsyncHttpClient httpClient;
+    private ObjectMapper om;
+    private final List<SyntheticTransactionServer> servers = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        httpClient = BatchRunner.createHttpClient(2, 2);
+        om = new ObjectMapper().registerModule(new TransactionModule());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (SyntheticTransactionServer server : servers) {
+            server.close();
+        }
+        httpClient.close();
+    }
+
+    @Test
+    public void testRunAccounts() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accounts.add(new Account("account-" + i, start(i, 30 + 10 * i, 0).getBaseUrl()));
+        }
+        SyntheticTransactionServer failing = start(99, 30, 1);
+        accounts.add(2, new Account("failing", failing.getBaseUrl()));
+
+        RequestPolicy policy = new RequestPolicy();
+        policy.setMaxRetries(0);
+        BatchRunner runner = new BatchRunner(httpClient, om, 2, 2);
+        runner.setRequestPolicy(policy);
+
+        Map<String, AccountResult> results = new HashMap<>();
+        runner.run(accounts, result -> results.put(result.getAccount().getId(), result)).get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals("Result of every account.", 6, results.size());
+        Assert.assertFalse("Failed account.", results.get("failing").isSuccess());
+        Assert.assertNotNull("Error of the failed account.", results.get("failing").getError());
+        for (int i = 0; i < 5; i++) {
+            AccountResult result = results.get("account-" + i);
+            Assert.assertTrue("Other accounts unaffected by the failed one.", result.isSuccess());
+            Assert.assertEquals("Total balance of the account.", totalOf(servers.get(i)),
+                    result.getBalances().getLastBalanceMinorUnits());
+        }
+    }
+
+    @Test
+    public void testRunInOrderOneAccountAtATime() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            accounts.add(new Account("account-" + i, start(i, 20, 0).getBaseUrl()));
+        }
+
+        List<Account> finished = Collections.synchronizedList(new ArrayList<>());
+        new BatchRunner(httpClient, om, 1, 2).run(accounts, result -> finished.add(result.getAccount()))
+                .get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals("Accounts finished in list order.", accounts, finished);
+    }
+
+    @Test
+    public void testRunNoAccount() throws Exception {
+        new BatchRunner(httpClient, om).run(Collections.emptyList(), result -> Assert.fail("No account."))
+                .get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testListenerFailure() throws Exception {
+        List<Account> accounts = Arrays.asList(
+                new Account("first", start(1, 20, 0).getBaseUrl()),
+                new Account("second", start(2, 20, 0).getBaseUrl()));
+
+        List<Account> finished = Collections.synchronizedList(new ArrayList<>());
+        try {
+            new BatchRunner(httpClient, om, 1, 2).run(accounts, result -> {
+                finished.add(result.getAccount());
+                throw new IllegalStateException("Listener failed.");
+            }).get(10, TimeUnit.SECONDS);
+            Assert.fail("Batch failed with the listener.");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("Error of the listener.", e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals("No account started after the failure.", 1, finished.size());
+    }
+
+    @Test
+    public void testParseAccount() throws Exception {
+        Assert.assertEquals("Id and base URL.", new Account("acme", "http://localhost:8080"),
+                Account.parse("  acme\thttp://localhost:8080 "));
+        Assert.assertEquals("Base URL as the id.", new Account("http://localhost:8080", "http://localhost:8080"),
+                Account.parse("http://localhost:8080"));
+        Assert.assertTrue("Blank line skipped.", Account.isSkipped("   "));
+        Assert.assertTrue("Comment skipped.", Account.isSkipped(" # accounts"));
+        Assert.assertFalse("Account not skipped.", Account.isSkipped("acme http://localhost:8080"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseAccountConstraints() throws Exception {
+        Account.parse("acme http://localhost:8080 extra");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorConstraints() throws Exception {
+        new BatchRunner(httpClient, om, 0, 1);
+    }
+
+    private SyntheticTransactionServer start(long seed, int totalCount, double errorRate) throws Exception {
+        SyntheticTransactionServer server = new SyntheticTransactionServer(seed, totalCount, 10);
+        server.setDateRange(LocalDate.of(2000, 1, 1), 30);
+        server.setErrorRate(errorRate);
+        server.start();
+        servers.add(server);
+        return server;
+    }
+
+    private static long totalOf(SyntheticTransactionServer server) {
+        long total = 0;
+        for (int i = 0; i < server.getTotalCount(); i++) {
+            total += Amounts.toMinorUnits(server.getTransaction(i).getAmount());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bench.cache;
+
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.PageSummary;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Unit test for CheckpointStore.
+ *
+ * Created by dlee.
+ */
+public class CheckpointStoreTest {
+    private static final String FEED = "http://resttest.bench.co/transactions/1.json";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Checkpoint checkpoint() {
+        DailyBalanceSeries balances = DailyBalanceSeries.ofDailyTotals(LocalDate.of(1999, 12, 31).toEpochDay(), new long[]{0L, 48950L, 0L, -10055L});
+        return new Checkpoint(FEED, 10, 3, 35, 38895L, balances);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        CheckpointStore store = new CheckpointStore(folder.getRoot().toPath().resolve("dir").resolve("checkpoint"));
+        Assert.assertNull("Expected no checkpoint.", store.load());
+        store.save(checkpoint());
+
+        Checkpoint loaded = store.load();
+        Assert.assertEquals("Incorrect feed.", FEED, loaded.getFeed());
+        Assert.assertEquals("Incorrect page size.", 10, loaded.getPageSize());
+        Assert.assertEquals("Incorrect last page.", 3, loaded.getLastPage());
+        Assert.assertEquals("Incorrect total count.", 35, loaded.getTotalCount());
+        Assert.assertEquals("Incorrect running total.", 38895L, loaded.getRunningTotal());
+        Assert.assertEquals("Incorrect last day balance.", 38895L, loaded.getLastDayBalance());
+        Assert.assertEquals("Incorrect balances.", checkpoint().getDailyBalances().asSortedMap(), loaded.getDailyBalances().asSortedMap());
+
+        store.clear();
+        Assert.assertNull("Expected no checkpoint.", store.load());
+    }
+
+    @Test
+    public void testDamagedCheckpointIgnored() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("checkpoint");
+        CheckpointStore store = new CheckpointStore(file);
+        store.save(checkpoint());
+
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(content, content.length - 4));
+        Assert.assertNull("Expected truncated checkpoint ignored.", store.load());
+    }
+
+    @Test
+    public void testCanResume() throws Exception {
+        Checkpoint checkpoint = checkpoint();
+
+        Assert.assertTrue("Expected resume when unchanged.", checkpoint.canResume(FEED, new PageSummary(35, 1, 10)));
+        Assert.assertTrue("Expected resume when grown.", checkpoint.canResume(FEED, new PageSummary(52, 1, 10)));
+        Assert.assertFalse("Expected rebuild when shrunk.", checkpoint.canResume(FEED, new PageSummary(34, 1, 10)));
+        Assert.assertFalse("Expected rebuild when page size changed.", checkpoint.canResume(FEED, new PageSummary(35, 1, 20)));
+        Assert.assertFalse("Expected rebuild for another feed.", checkpoint.canResume("http://localhost/transactions/1.json", new PageSummary(35, 1, 10)));
+    }
+}
@@ -0,0 +1,97 @@
+package com.bench.cache;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Unit test for PageCache.
+ *
+ * Created by dlee.
+ */
+public class PageCacheTest {
+    private static final String URL_1 = "http://resttest.bench.co/transactions/1.json";
+    private static final String URL_2 = "http://resttest.bench.co/transactions/2.json";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] body(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        PageCache cache = new PageCache(folder.getRoot().toPath());
+        cache.put(URL_1, new CachedPage(body("page 1"), "\"v1\"", null, 1000L));
+
+        CachedPage page = cache.get(URL_1);
+        Assert.assertNotNull("Expected cached page.", page);
+        Assert.assertArrayEquals("Incorrect body.", body("page 1"), page.getBody());
+        Assert.assertEquals("Incorrect etag.", "\"v1\"", page.getEtag());
+        Assert.assertNull("Expected no last modified.", page.getLastModified());
+        Assert.assertEquals("Incorrect stored at.", 1000L, page.getStoredAt());
+        Assert.assertNull("Expected miss.", cache.get(URL_2));
+    }
+
+    @Test
+    public void testEntriesSurviveRestart() throws Exception {
+        new PageCache(folder.getRoot().toPath()).put(URL_1, new CachedPage(body("page 1"), null, "Tue, 01 Aug 2017 00:00:00 GMT", 1000L));
+
+        PageCache cache = new PageCache(folder.getRoot().toPath());
+        Assert.assertTrue("Expected size of the existing entry.", cache.size() > 0);
+        Assert.assertEquals("Incorrect last modified.", "Tue, 01 Aug 2017 00:00:00 GMT", cache.get(URL_1).getLastModified());
+    }
+
+    @Test
+    public void testCorruptEntryIsMiss() throws Exception {
+        PageCache cache = new PageCache(folder.getRoot().toPath());
+        cache.put(URL_1, new CachedPage(body("page 1"), "\"v1\"", null, 1000L));
+
+        File[] entries = folder.getRoot().listFiles();
+        Assert.assertEquals("Expected one entry.", 1, entries.length);
+        byte[] content = Files.readAllBytes(entries[0].toPath());
+        content[content.length - 10] ^= 0x7F;
+        Files.write(entries[0].toPath(), content);
+
+        Assert.assertNull("Expected corrupt entry to be a miss.", cache.get(URL_1));
+        Assert.assertEquals("Expected corrupt entry to be removed.", 0, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void testLeftoverTemporaryFilesRemoved() throws Exception {
+        File leftover = folder.newFile("entry.page123" + AtomicFiles.TEMP_SUFFIX);
+        new PageCache(folder.getRoot().toPath());
+        Assert.assertFalse("Expected leftover to be removed.", leftover.exists());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        PageCache cache = new PageCache(folder.getRoot().toPath(), 200, 0);
+        cache.put(URL_1, new CachedPage(new byte[100], "\"v1\"", null, 1000L));
+        for (File entry : folder.getRoot().listFiles()) {
+            Files.setLastModifiedTime(entry.toPath(), FileTime.fromMillis(0));
+        }
+        cache.put(URL_2, new CachedPage(new byte[100], "\"v2\"", null, 1000L));
+
+        Assert.assertNull("Expected oldest entry evicted.", cache.get(URL_1));
+        Assert.assertNotNull("Expected newest entry kept.", cache.get(URL_2));
+        Assert.assertTrue("Expected size within the maximum.", cache.size() <= 200);
+    }
+
+    @Test
+    public void testFreshness() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        CachedPage page = new CachedPage(body("page 1"), "\"v1\"", null, System.currentTimeMillis());
+
+        Assert.assertFalse("Expected revalidation without max age.", new PageCache(dir).isFresh(page));
+        Assert.assertTrue("Expected fresh within max age.", new PageCache(dir, PageCache.DEFAULT_MAX_BYTES, 60000).isFresh(page));
+    }
+}
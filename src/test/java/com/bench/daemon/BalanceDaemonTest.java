@@ -0,0 +1,195 @@
+package com.bench.daemon;
+
+import com.bench.cache.CheckpointStore;
+import com.bench.model.Amounts;
+import com.bench.model.DailyBalanceSeries;
+import com.bench.model.TransactionModule;
+import com.bench.server.SyntheticTransactionServer;
+import com.bench.service.RequestPolicy;
+import com.bench.service.TransactionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Unit test for BalanceDaemon, serving the balances of a synthetic server.
+ *
+ * Created by dlee.
+ */
+public class BalanceDaemonTest {
+    private static final long HOUR_MILLIS = 3600000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AsyncHttpClient httpClient;
+    private ObjectMapper om;
+    private SyntheticTransactionServer server;
+    private BalanceDaemon daemon;
+
+    @Before
+    public void setUp() throws Exception {
+        httpClient = new DefaultAsyncHttpClient();
+        om = new ObjectMapper().registerModule(new TransactionModule());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (daemon != null) {
+            daemon.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+        httpClient.close();
+    }
+
+    @Test
+    public void testServesBalances() throws Exception {
+        server = new SyntheticTransactionServer(42, 95, 10);
+        server.setDateRange(LocalDate.of(2000, 1, 1), 30);
+        server.start();
+        daemon = new BalanceDaemon(serviceOf(server), HOUR_MILLIS);
+        daemon.start(0);
+        DailyBalanceSeries balances = daemon.refresh();
+
+        JsonNode total = get("/total", 200);
+        Assert.assertEquals("Total balance.", BigDecimal.valueOf(totalOf(server, 95), 2), new BigDecimal(total.get("totalBalance").asText()));
+        Assert.assertEquals("Last date.", balances.getLastDate().toString(), total.get("lastDate").asText());
+
+        LocalDate date = LocalDate.of(2000, 1, 15);
+        JsonNode balance = get("/balance?date=2000-01-15", 200);
+        Assert.assertEquals("Balance as of the day.", BigDecimal.valueOf(balances.balanceMinorUnitsOn(date), 2),
+                new BigDecimal(balance.get("balance").asText()));
+
+        JsonNode range = get("/balance?from=2000-01-10&to=2000-01-12", 200);
+        Assert.assertEquals("Days of the range.", 3, range.get("dailyBalances").size());
+        Assert.assertEquals("First day of the range.", "2000-01-10", range.get("dailyBalances").get(0).get("date").asText());
+        Assert.assertEquals("Balance at the end of the range.", BigDecimal.valueOf(balances.balanceMinorUnitsOn(LocalDate.of(2000, 1, 12)), 2),
+                new BigDecimal(range.get("totalBalance").asText()));
+    }
+
+    @Test
+    public void testRefreshExtendsBalances() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.setTotalCountDrift(1);
+        server.start();
+        // one page at a time, so the pages are served at 25, 26 then 27 transactions, the last page holding 7 of them
+        TransactionService ts = new TransactionService(httpClient, om, 1);
+        ts.setBaseUrl(server.getBaseUrl());
+        ts.setCheckpointStore(new CheckpointStore(folder.getRoot().toPath().resolve("checkpoint")));
+        daemon = new BalanceDaemon(ts, HOUR_MILLIS);
+        daemon.start(0);
+
+        Assert.assertEquals("Balances of 27 transactions.", totalOf(server, 27), awaitBalances().getLastBalanceMinorUnits());
+        int requests = server.getRequestCount();
+
+        // the first page and the partial last page past the checkpoint, served at 28 then 29 transactions
+        daemon.refresh();
+        Assert.assertEquals("Only the pages past the checkpoint.", requests + 2, server.getRequestCount());
+        Assert.assertEquals("Refreshed balances served.", BigDecimal.valueOf(totalOf(server, 29), 2),
+                new BigDecimal(get("/total", 200).get("totalBalance").asText()));
+    }
+
+    @Test
+    public void testUnavailableUntilRefreshed() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.setErrorRate(1);
+        server.start();
+        RequestPolicy policy = new RequestPolicy();
+        policy.setMaxRetries(0);
+        TransactionService ts = serviceOf(server);
+        ts.setRequestPolicy(policy);
+        daemon = new BalanceDaemon(ts, HOUR_MILLIS);
+        daemon.start(0);
+
+        try {
+            daemon.refresh();
+            Assert.fail("Expecting the refresh to fail.");
+        } catch (Exception e) {
+            Assert.assertNotNull("Last error.", daemon.getLastError());
+        }
+        Assert.assertNull("No balances.", daemon.getBalances());
+        Assert.assertTrue("Error.", get("/total", 503).has("error"));
+    }
+
+    @Test
+    public void testInvalidQueries() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.start();
+        daemon = new BalanceDaemon(serviceOf(server), HOUR_MILLIS);
+        daemon.start(0);
+        daemon.refresh();
+
+        Assert.assertTrue("Invalid date.", get("/balance?date=2000-13-01", 400).get("error").asText().contains("2000-13-01"));
+        Assert.assertTrue("Missing date.", get("/balance?from=2000-01-01", 400).has("error"));
+        Response response = httpClient.prepareGet(daemon.getBaseUrl() + "/totals").execute().get();
+        Assert.assertEquals("Unknown path.", 404, response.getStatusCode());
+    }
+
+    @Test(timeout = 5000)
+    public void testCloseTwice() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.start();
+        daemon = new BalanceDaemon(serviceOf(server), HOUR_MILLIS);
+        daemon.start(0);
+
+        Thread hook = new Thread(daemon::close);
+        hook.start();
+        daemon.close();
+        hook.join();
+        daemon.awaitClose();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorConstraints() throws Exception {
+        new BalanceDaemon(new TransactionService(httpClient, om), 0);
+    }
+
+    private TransactionService serviceOf(SyntheticTransactionServer server) {
+        TransactionService ts = new TransactionService(httpClient, om);
+        ts.setBaseUrl(server.getBaseUrl());
+        return ts;
+    }
+
+    /**
+     * Waits for the first refresh, started with the daemon.
+     */
+    private DailyBalanceSeries awaitBalances() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (daemon.getBalances() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertNotNull("Balances of the first refresh.", daemon.getBalances());
+        return daemon.getBalances();
+    }
+
+    private JsonNode get(String path, int statusCode) throws Exception {
+        Response response = httpClient.prepareGet(daemon.getBaseUrl() + path).execute().get();
+        Assert.assertEquals("Status of " + path + ".", statusCode, response.getStatusCode());
+        Assert.assertEquals("JSON.", "application/json", response.getContentType());
+        return om.readTree(response.getResponseBody());
+    }
+
+    /**
+     * @return The total of the first transactions of the feed, in minor units.
+     */
+    private static long totalOf(SyntheticTransactionServer server, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += Amounts.toMinorUnits(server.getTransaction(i).getAmount());
+        }
+        return total;
+    }
+}
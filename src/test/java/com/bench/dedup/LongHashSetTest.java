@@ -0,0 +1,49 @@
+package com.bench.dedup;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit test for LongHashSet.
+ *
+ * Created by dlee.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void testAdd() throws Exception {
+        LongHashSet set = new LongHashSet();
+        Assert.assertTrue("New fingerprint.", set.add(42));
+        Assert.assertTrue("New fingerprint.", set.add(0));
+        Assert.assertTrue("New fingerprint.", set.add(Long.MIN_VALUE));
+        Assert.assertFalse("Repeated fingerprint.", set.add(42));
+        Assert.assertFalse("Repeated zero.", set.add(0));
+
+        Assert.assertTrue("Contains.", set.contains(0));
+        Assert.assertFalse("Does not contain.", set.contains(7));
+        Assert.assertEquals("Size incorrect.", 3, set.size());
+    }
+
+    @Test
+    public void testGrowsPastCapacity() throws Exception {
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        for (long i = 0; i < 20000; i++) {
+            // repeats every 7000, and keys differing only in their high bits
+            long fingerprint = (i % 7000) << 40;
+            Assert.assertEquals("Same answer as a HashSet.", expected.add(fingerprint), set.add(fingerprint));
+        }
+        Assert.assertEquals("Size incorrect.", expected.size(), set.size());
+        for (long fingerprint : expected) {
+            Assert.assertTrue("Kept across growth.", set.contains(fingerprint));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorConstraints() throws Exception {
+        new LongHashSet(-1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bench.dedup;
+
+import com.bench.model.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for TransactionDeduplicator.
+ *
+ * Created by dlee.
+ */
+public class TransactionDeduplicatorTest {
+
+    @Test
+    public void testRejectsRepeats() throws Exception {
+        Transaction t1 = new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", -100.55, "Company A");
+        Transaction t2 = new Transaction(LocalDate.of(2000, 1, 2), "Ledger Y", -10.5, "Company B");
+        List<Transaction> kept = new ArrayList<>();
+        TransactionDeduplicator deduplicator = new TransactionDeduplicator(kept::add, new LongHashSet());
+
+        deduplicator.accept(t1);
+        deduplicator.accept(t2);
+        deduplicator.accept(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", -100.55, "Company A"));
+
+        List<Transaction> expected = new ArrayList<>();
+        expected.add(t1);
+        expected.add(t2);
+        Assert.assertEquals("Expecting the first occurrences.", expected, kept);
+        Assert.assertEquals("Unique count.", 2, deduplicator.getUniqueCount());
+        Assert.assertEquals("Duplicate count.", 1, deduplicator.getDuplicateCount());
+
+        DedupReport report = deduplicator.report(3);
+        Assert.assertTrue("Expecting a count mismatch.", report.isCountMismatch());
+        Assert.assertEquals("Report.", "expected=3 unique=2 duplicates=1", report.toString());
+        Assert.assertFalse("Expecting the counts to match.", deduplicator.report(2).isCountMismatch());
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        long fingerprint = TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", -100.55, "Company A"));
+        Assert.assertEquals("Same values.", fingerprint,
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", -100.55, "Company A")));
+
+        Assert.assertNotEquals("Different date.", fingerprint,
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 2), "Ledger X", -100.55, "Company A")));
+        Assert.assertNotEquals("Different amount.", fingerprint,
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", -100.56, "Company A")));
+        Assert.assertNotEquals("Different ledger.", fingerprint,
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", -100.55, "Company A")));
+        Assert.assertNotEquals("Values shifted between fields.",
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), "ab", 1, "c")),
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), "a", 1, "bc")));
+        Assert.assertNotEquals("Null differs from empty.",
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), null, 1, "c")),
+                TransactionDeduplicator.fingerprint(new Transaction(LocalDate.of(2000, 1, 1), "", 1, "c")));
+    }
+}
@@ -0,0 +1,55 @@
+package com.bench.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for Histogram.
+ *
+ * Created by dlee.
+ */
+public class HistogramTest {
+
+    @Test
+    public void testBucketBounds() throws Exception {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucketOf(value);
+            Assert.assertTrue("Value above the lowest of its bucket.", Histogram.lowestValueOf(bucket) <= value);
+            if (value < Long.MAX_VALUE) {
+                Assert.assertTrue("Value below the lowest of the next bucket.", value < Histogram.lowestValueOf(bucket + 1));
+            }
+        }
+        Assert.assertEquals("Small values exact.", 7, Histogram.bucketOf(7));
+        Assert.assertEquals("Buckets increasing.", Histogram.bucketOf(16) + 1, Histogram.bucketOf(18));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        Assert.assertEquals("Count.", 1000, histogram.getCount());
+        Assert.assertEquals("Sum.", 500500, histogram.getSum());
+        Assert.assertEquals("Max.", 1000, histogram.getMax());
+        Assert.assertEquals("Mean.", 500.5, histogram.getMean(), 0);
+        Assert.assertEquals("Median within the bucket precision.", 500, histogram.getValueAtPercentile(0.5), 500 / 8d);
+        Assert.assertEquals("P99 within the bucket precision.", 990, histogram.getValueAtPercentile(0.99), 990 / 8d);
+        Assert.assertEquals("P100 capped by the max.", 1000, histogram.getValueAtPercentile(1));
+    }
+
+    @Test
+    public void testEmptyAndReset() throws Exception {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals("No percentile.", 0, histogram.getValueAtPercentile(0.5));
+        Assert.assertEquals("No mean.", 0, histogram.getMean(), 0);
+
+        histogram.record(-5);
+        Assert.assertEquals("Negative recorded as 0.", 0, histogram.getMax());
+        histogram.record(42);
+        histogram.reset();
+        Assert.assertEquals("Cleared.", 0, histogram.getCount());
+        Assert.assertEquals("Cleared.", 0, histogram.getValueAtPercentile(0.5));
+    }
+}
@@ -0,0 +1,66 @@
+package com.bench.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+/**
+ * Unit test for TransactionMetrics.
+ *
+ * Created by dlee.
+ */
+public class TransactionMetricsTest {
+
+    @Test
+    public void testRecord() throws Exception {
+        TransactionMetrics metrics = new TransactionMetrics();
+        metrics.recordRoundTrip(2000000);
+        metrics.recordRoundTrip(4000000);
+        metrics.recordResponseBytes(100);
+        metrics.recordResponseBytes(300);
+        metrics.recordTransferBytes(120);
+        metrics.recordParse(1000, 10);
+        metrics.recordParse(1000, 5);
+        metrics.recordRetry();
+        metrics.recordHedge();
+        metrics.recordDuplicates(3);
+        metrics.recordCountMismatch();
+        metrics.recordAggregation(1500000);
+
+        Assert.assertEquals("Pages.", 2, metrics.getPages());
+        Assert.assertEquals("Transactions.", 15, metrics.getTransactions());
+        Assert.assertEquals("Bytes.", 400, metrics.getResponseBytes());
+        Assert.assertEquals("Transfer bytes.", 120, metrics.getTransferBytes());
+        Assert.assertEquals("Retries.", 1, metrics.getRetries());
+        Assert.assertEquals("Hedges.", 1, metrics.getHedges());
+        Assert.assertEquals("Duplicates.", 3, metrics.getDuplicates());
+        Assert.assertEquals("Count mismatches.", 1, metrics.getCountMismatches());
+        Assert.assertEquals("Round trip mean.", 3, metrics.getRoundTripMeanMillis(), 0);
+        Assert.assertEquals("Round trip max.", 4, metrics.getRoundTripMaxMillis(), 0);
+        Assert.assertEquals("Transactions per page.", 7.5, metrics.getTransactionsPerPageMean(), 0);
+        Assert.assertEquals("Aggregation.", 1.5, metrics.getAggregationMillis(), 0);
+        Assert.assertTrue("Summary.", metrics.summary().startsWith("pages=2 transactions=15 bytes=400 retries=1 hedges=1 duplicates=3 "));
+        Assert.assertTrue("Summary.", metrics.summary().endsWith(" transferBytes=120"));
+
+        metrics.reset();
+        Assert.assertEquals("Reset.", 0, metrics.getPages());
+        Assert.assertEquals("Reset.", 0, metrics.getRetries());
+        Assert.assertEquals("Reset.", 0, metrics.getDuplicates());
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        TransactionMetrics metrics = new TransactionMetrics();
+        metrics.recordParse(1000, 10);
+
+        ObjectName name = metrics.register(server, new ObjectName(TransactionMetrics.DEFAULT_OBJECT_NAME));
+
+        Assert.assertEquals("Attribute over JMX.", 10L, server.getAttribute(name, "Transactions"));
+        server.invoke(name, "reset", null, null);
+        Assert.assertEquals("Operation over JMX.", 0L, server.getAttribute(name, "Pages"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.bench.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Unit test for DailyBalanceSeries class.
+ *
+ * Created by dlee.
+ */
+public class DailyBalanceSeriesTest {
+    private static final long FIRST_DAY = LocalDate.of(1999, 12, 31).toEpochDay();
+
+    private DailyBalanceSeries series() {
+        return DailyBalanceSeries.ofDailyTotals(FIRST_DAY, new long[]{0L, 48950L, 0L, -10055L});
+    }
+
+    @Test
+    public void testRunningBalances() throws Exception {
+        DailyBalanceSeries series = series();
+
+        Assert.assertEquals("Incorrect size.", 4, series.size());
+        Assert.assertEquals("Incorrect first date.", LocalDate.of(1999, 12, 31), series.getFirstDate());
+        Assert.assertEquals("Incorrect last date.", LocalDate.of(2000, 1, 3), series.getLastDate());
+        Assert.assertEquals("Incorrect balance.", 48950L, series.getBalanceMinorUnits(2));
+        Assert.assertTrue("Incorrect balance.", Double.compare(388.95d, series.getBalance(3)) == 0);
+    }
+
+    @Test
+    public void testBalanceOn() throws Exception {
+        DailyBalanceSeries series = series();
+
+        Assert.assertTrue("Incorrect balance.", Double.compare(489.5d, series.balanceOn(LocalDate.of(2000, 1, 2))) == 0);
+        Assert.assertTrue("Expected zero before the series.", Double.compare(0d, series.balanceOn(LocalDate.of(1990, 1, 1))) == 0);
+        Assert.assertTrue("Expected last balance after the series.", Double.compare(388.95d, series.balanceOn(LocalDate.of(2020, 1, 1))) == 0);
+        Assert.assertTrue("Expected zero for empty series.", Double.compare(0d, DailyBalanceSeries.empty().balanceOn(LocalDate.of(2020, 1, 1))) == 0);
+    }
+
+    @Test
+    public void testBetween() throws Exception {
+        DailyBalanceSeries range = series().between(LocalDate.of(2000, 1, 2), LocalDate.of(2010, 1, 1));
+
+        Assert.assertEquals("Incorrect size.", 2, range.size());
+        Assert.assertEquals("Incorrect first date.", LocalDate.of(2000, 1, 2), range.getFirstDate());
+        Assert.assertTrue("Incorrect balance.", Double.compare(489.5d, range.getBalance(0)) == 0);
+        Assert.assertTrue("Expected empty range.", series().between(LocalDate.of(2010, 1, 1), LocalDate.of(2011, 1, 1)).isEmpty());
+    }
+
+    @Test
+    public void testBalanceOnView() throws Exception {
+        DailyBalanceSeries range = series().between(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 2));
+
+        Assert.assertEquals("Incorrect balance.", 48950L, range.balanceMinorUnitsOn(LocalDate.of(2000, 1, 1)));
+        Assert.assertEquals("Expected zero before the view.", 0L, range.balanceMinorUnitsOn(LocalDate.of(1999, 12, 31)));
+        Assert.assertEquals("Expected last balance of the view after it.", 48950L, range.balanceMinorUnitsOn(LocalDate.of(2000, 1, 3)));
+        DailyBalanceSeries empty = series().between(LocalDate.of(2010, 1, 1), LocalDate.of(2011, 1, 1));
+        Assert.assertEquals("Expected zero for an empty view.", 0L, empty.balanceMinorUnitsOn(LocalDate.of(2000, 1, 3)));
+    }
+
+    @Test
+    public void testAsSortedMap() throws Exception {
+        SortedMap<LocalDate, Double> expected = new TreeMap<>();
+        expected.put(LocalDate.of(1999, 12, 31), 0d);
+        expected.put(LocalDate.of(2000, 1, 1), 489.5d);
+        expected.put(LocalDate.of(2000, 1, 2), 489.5d);
+        expected.put(LocalDate.of(2000, 1, 3), 388.95d);
+
+        SortedMap<LocalDate, Double> actual = series().asSortedMap();
+        Assert.assertEquals("Incorrect map.", expected, actual);
+        Assert.assertEquals("Incorrect head map.", expected.headMap(LocalDate.of(2000, 1, 2)), actual.headMap(LocalDate.of(2000, 1, 2)));
+        Assert.assertEquals("Incorrect tail map.", expected.tailMap(LocalDate.of(2000, 1, 2)), actual.tailMap(LocalDate.of(2000, 1, 2)));
+        Assert.assertEquals("Incorrect last key.", expected.lastKey(), actual.lastKey());
+        Assert.assertNull("Expected no value.", actual.get(LocalDate.of(2000, 1, 4)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubMapConstraints() throws Exception {
+        series().asSortedMap().subMap(LocalDate.of(2000, 1, 2), LocalDate.of(2000, 1, 1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAsSortedMapIsUnmodifiable() throws Exception {
+        series().asSortedMap().put(LocalDate.of(2000, 1, 4), 1d);
+    }
+}
@@ -0,0 +1,64 @@
+package com.bench.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+/**
+ * Unit test for TransactionColumns class.
+ *
+ * Created by dlee.
+ */
+public class TransactionColumnsTest {
+
+    @Test
+    public void testAddAndGetters() throws Exception {
+        TransactionColumns columns = new TransactionColumns(1);
+        Transaction t1 = new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A");
+        Transaction t2 = new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B");
+        Transaction t3 = new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company A");
+        columns.accept(t1);
+        columns.accept(t2);
+        columns.accept(t3);
+
+        Assert.assertEquals("Incorrect size.", 3, columns.size());
+        Assert.assertEquals("Incorrect transaction.", t1, columns.getTransaction(0));
+        Assert.assertEquals("Incorrect transaction.", t2, columns.getTransaction(1));
+        Assert.assertEquals("Incorrect transaction.", t3, columns.getTransaction(2));
+        Assert.assertEquals("Incorrect epoch day.", LocalDate.of(2000, 1, 3).toEpochDay(), columns.getEpochDay(0));
+        Assert.assertEquals("Incorrect minor units.", -10055L, columns.getAmountMinorUnits(0));
+    }
+
+    @Test
+    public void testDictionaryEncoding() throws Exception {
+        TransactionColumns columns = new TransactionColumns();
+        columns.add(LocalDate.of(2000, 1, 1), "Ledger X", 1, "Company A");
+        columns.add(LocalDate.of(2000, 1, 2), "Ledger Y", 2, "Company A");
+        columns.add(LocalDate.of(2000, 1, 3), "Ledger X", 3, "Company A");
+
+        Assert.assertEquals("Expected 2 distinct ledgers.", 2, columns.getLedgers().size());
+        Assert.assertEquals("Expected 1 distinct company.", 1, columns.getCompanies().size());
+        Assert.assertEquals("Expected same ledger code.", columns.getLedgerCode(0), columns.getLedgerCode(2));
+        Assert.assertEquals("Incorrect ledger value.", "Ledger Y", columns.getLedger(1));
+    }
+
+    @Test
+    public void testSums() throws Exception {
+        TransactionColumns columns = new TransactionColumns();
+        columns.add(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A");
+        columns.add(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B");
+        columns.add(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company C");
+
+        int first = (int) LocalDate.of(2000, 1, 1).toEpochDay();
+        Assert.assertEquals("Incorrect sum.", 38895L, columns.sumMinorUnits());
+        Assert.assertEquals("Incorrect min epoch day.", first, columns.minEpochDay());
+        Assert.assertEquals("Incorrect max epoch day.", first + 2, columns.maxEpochDay());
+        Assert.assertArrayEquals("Incorrect daily sums.", new long[]{48950L, 0L, -10055L}, columns.sumMinorUnitsByDay(first, 3));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexConstraints() throws Exception {
+        new TransactionColumns().getAmount(0);
+    }
+}
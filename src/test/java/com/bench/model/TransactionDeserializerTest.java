@@ -0,0 +1,110 @@
+package com.bench.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+
+/**
+ * Unit test for TransactionDeserializer class.
+ *
+ * Created by dlee.
+ */
+public class TransactionDeserializerTest {
+    private ObjectMapper om = new ObjectMapper().registerModule(new TransactionModule());
+    private ObjectMapper defaultOm = new ObjectMapper();
+
+    private String transaction(String date, String amount) {
+        return "{\"Date\": " + date + ", \"Ledger\": \"Ledger X\", \"Amount\": " + amount + ", \"Company\": \"Company ABC\"}";
+    }
+
+    private void assertSameAsDefault(String payload) throws Exception {
+        Transaction expected = defaultOm.readValue(payload, Transaction.class);
+        Transaction actual = om.readValue(payload, Transaction.class);
+        Assert.assertEquals("Incorrect date for " + payload, expected.getDate(), actual.getDate());
+        Assert.assertEquals("Incorrect ledger for " + payload, expected.getLedger(), actual.getLedger());
+        Assert.assertTrue("Incorrect amount for " + payload, Double.compare(expected.getAmount(), actual.getAmount()) == 0);
+        Assert.assertEquals("Incorrect company for " + payload, expected.getCompany(), actual.getCompany());
+    }
+
+    @Test
+    public void testDeserialization() throws Exception {
+        InputStream is = TransactionDeserializerTest.class.getClassLoader().getResourceAsStream("model/Transaction.json");
+        Transaction t = om.readValue(IOUtils.toString(is, Charset.defaultCharset()), Transaction.class);
+
+        Transaction expected = new Transaction(LocalDate.of(2013, 12, 20), "Ledger X", 100.50, "Company ABC");
+        Assert.assertEquals("Incorrect deserialization", expected, t);
+    }
+
+    @Test
+    public void testAmountsMatchDefault() throws Exception {
+        String[] amounts = {"\"-100.55\"", "\"100.50\"", "\"0.1\"", "\"-0.07\"", "\"5\"", "\"5.\"", "\".5\"", "\"+3.3\"",
+                "\"-0\"", "\"123456789012.34\"", "\"1.005\"", "\"1e3\"", "\"NaN\"", "12.34", "-7", "null"};
+        for (String amount : amounts) {
+            assertSameAsDefault(transaction("\"2013-12-20\"", amount));
+        }
+    }
+
+    @Test
+    public void testDatesMatchDefault() throws Exception {
+        String[] dates = {"\"2013-12-20\"", "\"2000-02-29\"", "\"+12013-12-20\"", "null"};
+        for (String date : dates) {
+            assertSameAsDefault(transaction(date, "\"1\""));
+        }
+    }
+
+    @Test
+    public void testDateCacheReturnsSameInstance() throws Exception {
+        TransactionDeserializer deserializer = new TransactionDeserializer(null);
+        LocalDate d1 = deserializer.parseIsoDate("2013-12-20".toCharArray(), 0, 10);
+        LocalDate d2 = deserializer.parseIsoDate("x2013-12-20".toCharArray(), 1, 10);
+
+        Assert.assertEquals("Incorrect date.", LocalDate.of(2013, 12, 20), d1);
+        Assert.assertSame("Expected cached instance.", d1, d2);
+        Assert.assertNull("Expected invalid date to fall back.", deserializer.parseIsoDate("2013-02-30".toCharArray(), 0, 10));
+    }
+
+    @Test
+    public void testParseMinorUnits() throws Exception {
+        Assert.assertEquals("Incorrect minor units.", -10055L, TransactionDeserializer.parseMinorUnits("-100.55".toCharArray(), 0, 7));
+        Assert.assertEquals("Incorrect minor units.", 10050L, TransactionDeserializer.parseMinorUnits("100.5".toCharArray(), 0, 5));
+        Assert.assertEquals("Expected fallback.", Long.MIN_VALUE, TransactionDeserializer.parseMinorUnits("1.005".toCharArray(), 0, 5));
+        Assert.assertEquals("Expected fallback.", Long.MIN_VALUE, TransactionDeserializer.parseMinorUnits("-".toCharArray(), 0, 1));
+    }
+
+    @Test
+    public void testAmountDigitsBoundary() throws Exception {
+        Assert.assertEquals("Incorrect minor units.", 999999999999999L, TransactionDeserializer.parseMinorUnits("9999999999999.99".toCharArray(), 0, 16));
+        Assert.assertEquals("Expected fallback.", Long.MIN_VALUE, TransactionDeserializer.parseMinorUnits("99999999999999.99".toCharArray(), 0, 17));
+
+        String[] amounts = {"\"9999999999999.99\"", "\"-9007199254740.93\"", "\"99999999999999.99\"", "\"900719925474099.27\""};
+        for (String amount : amounts) {
+            Transaction t = om.readValue(transaction("\"2013-12-20\"", amount), Transaction.class);
+            double expected = Double.parseDouble(amount.substring(1, amount.length() - 1));
+            Assert.assertTrue("Incorrect amount for " + amount, Double.compare(expected, t.getAmount()) == 0);
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void testInvalidDate() throws Exception {
+        om.readValue(transaction("\"2013-02-30\"", "\"1\""), Transaction.class);
+    }
+
+    @Test(expected = UnrecognizedPropertyException.class)
+    public void testUnknownProperty() throws Exception {
+        om.readValue("{\"Date\": \"2013-12-20\", \"Other\": 1}", Transaction.class);
+    }
+
+    @Test
+    public void testPageDeserialization() throws Exception {
+        InputStream is = TransactionDeserializerTest.class.getClassLoader().getResourceAsStream("model/TransactionPage.json");
+        String payload = IOUtils.toString(is, Charset.defaultCharset());
+
+        Assert.assertEquals("Incorrect deserialization", defaultOm.readValue(payload, TransactionPage.class), om.readValue(payload, TransactionPage.class));
+    }
+}
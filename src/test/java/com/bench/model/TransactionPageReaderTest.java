@@ -0,0 +1,64 @@
+package com.bench.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for TransactionPageReader class.
+ *
+ * Created by dlee.
+ */
+public class TransactionPageReaderTest {
+    private byte[] testPayload;
+    private ObjectMapper om = new ObjectMapper();
+    private TransactionPageReader reader = new TransactionPageReader(om);
+
+    @Before
+    public void setUp() throws Exception {
+        InputStream is = TransactionPageReaderTest.class.getClassLoader().getResourceAsStream("model/TransactionPage.json");
+        testPayload = IOUtils.toByteArray(is);
+    }
+
+    @Test
+    public void testReadMatchesDeserialization() throws Exception {
+        TransactionPage expected = om.readValue(testPayload, TransactionPage.class);
+
+        List<Transaction> transactions = new ArrayList<>();
+        PageSummary summary = reader.read(testPayload, transactions::add);
+
+        Assert.assertEquals("Incorrect summary.", new PageSummary(10, 1, 2), summary);
+        Assert.assertEquals("Incorrect transactions.", expected.getTransactions(), transactions);
+    }
+
+    @Test
+    public void testReadFromStream() throws Exception {
+        List<Transaction> transactions = new ArrayList<>();
+        PageSummary summary = reader.read(new ByteArrayInputStream(testPayload), transactions::add);
+
+        Assert.assertEquals("Incorrect summary.", new PageSummary(10, 1, 2), summary);
+        Assert.assertEquals("Incorrect number of transactions.", 2, transactions.size());
+    }
+
+    @Test
+    public void testReadIgnoresUnknownFields() throws Exception {
+        String payload = "{\"extra\": {\"a\": [1, 2]}, \"transactions\": [], \"page\": 3, \"totalCount\": 0}";
+        PageSummary summary = reader.read(payload.getBytes(StandardCharsets.UTF_8), t -> Assert.fail("No transaction expected."));
+
+        Assert.assertEquals("Incorrect summary.", new PageSummary(0, 3, 0), summary);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadWithoutTransactions() throws Exception {
+        reader.read("{\"totalCount\": 10, \"page\": 1}".getBytes(StandardCharsets.UTF_8), t -> { });
+    }
+}
@@ -0,0 +1,151 @@
+package com.bench.report;
+
+import com.bench.model.DailyBalanceSeries;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Unit test for ReportWriter.
+ *
+ * Created by dlee.
+ */
+public class ReportWriterTest {
+    private static final DailyBalanceSeries BALANCES = DailyBalanceSeries.ofDailyTotals(
+            LocalDate.of(1999, 12, 31).toEpochDay(), new long[]{0, 48950, 0, -10055});
+
+    @Test
+    public void testWriteText() throws Exception {
+        String n = System.lineSeparator();
+        Assert.assertEquals("Text report incorrect.",
+                "Total Balance: $388.95" + n + n
+                        + "Running Daily Balances:" + n
+                        + "1999-12-31: $0" + n
+                        + "2000-01-01: $489.5" + n
+                        + "2000-01-02: $489.5" + n
+                        + "2000-01-03: $388.95" + n,
+                write(BALANCES, ReportFormat.TEXT));
+    }
+
+    @Test
+    public void testWriteTextSameAsDecimalFormat() throws Exception {
+        // several decades, so the dates cross leap years and the output spans many buffers
+        Random random = new Random(42);
+        long[] dailyTotals = new long[40000];
+        for (int i = 0; i < dailyTotals.length; i++) {
+            dailyTotals[i] = random.nextInt(200001) - 100000;
+        }
+        DailyBalanceSeries balances = DailyBalanceSeries.ofDailyTotals(LocalDate.of(1960, 2, 27).toEpochDay(), dailyTotals);
+
+        DecimalFormat df = new DecimalFormat("#.##");
+        StringBuilder expected = new StringBuilder();
+        String n = System.lineSeparator();
+        expected.append("Total Balance: $").append(df.format(balances.getLastBalance())).append(n).append(n);
+        expected.append("Running Daily Balances:").append(n);
+        for (int i = 0; i < balances.size(); i++) {
+            expected.append(balances.getDate(i)).append(": $").append(df.format(balances.getBalance(i))).append(n);
+        }
+        Assert.assertEquals("Same report as formatted with DecimalFormat.", expected.toString(), write(balances, ReportFormat.TEXT));
+    }
+
+    @Test
+    public void testWriteCsv() throws Exception {
+        Assert.assertEquals("CSV report incorrect.",
+                "date,balance\n1999-12-31,0.00\n2000-01-01,489.50\n2000-01-02,489.50\n2000-01-03,388.95\n",
+                write(BALANCES, ReportFormat.CSV));
+    }
+
+    @Test
+    public void testWriteJson() throws Exception {
+        String json = write(BALANCES, ReportFormat.JSON);
+        Assert.assertTrue("Amounts with two decimals.", json.startsWith("{\"totalBalance\":388.95,\"dailyBalances\":[{\"date\":\"1999-12-31\",\"balance\":0.00}"));
+
+        JsonNode report = new ObjectMapper().readTree(json);
+        Assert.assertEquals("Total balance incorrect.", 388.95, report.get("totalBalance").asDouble(), 0);
+        Assert.assertEquals("Number of days incorrect.", 4, report.get("dailyBalances").size());
+        Assert.assertEquals("Date incorrect.", "2000-01-03", report.get("dailyBalances").get(3).get("date").asText());
+        Assert.assertEquals("Balance incorrect.", 489.5, report.get("dailyBalances").get(1).get("balance").asDouble(), 0);
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        String n = System.lineSeparator();
+        Assert.assertEquals("Text report incorrect.", "Total Balance: $0" + n + n + "Running Daily Balances:" + n,
+                write(DailyBalanceSeries.empty(), ReportFormat.TEXT));
+        Assert.assertEquals("CSV report incorrect.", "date,balance\n", write(DailyBalanceSeries.empty(), ReportFormat.CSV));
+        Assert.assertEquals("JSON report incorrect.", "{\"totalBalance\":0.00,\"dailyBalances\":[]}\n",
+                write(DailyBalanceSeries.empty(), ReportFormat.JSON));
+    }
+
+    @Test
+    public void testWriteFile() throws Exception {
+        Path file = Files.createTempFile("report", ".csv");
+        try {
+            Files.write(file, "previous content, longer than the report".getBytes(StandardCharsets.US_ASCII));
+            try (ReportWriter writer = ReportWriter.open(file, ReportFormat.CSV)) {
+                writer.write(BALANCES.between(LocalDate.of(2000, 1, 3), LocalDate.of(2000, 1, 3)));
+            }
+            Assert.assertEquals("File replaced by the report.", "date,balance\n2000-01-03,388.95\n",
+                    new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWriteWithCallerBuffer() throws Exception {
+        DailyBalanceSeries balances = DailyBalanceSeries.ofDailyTotals(LocalDate.of(2000, 1, 1).toEpochDay(), new long[1000]);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put((byte) 'x');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportWriter writer = new ReportWriter(Channels.newChannel(out), ReportFormat.JSON, buffer)) {
+            writer.write(balances);
+        }
+        Assert.assertEquals("Same report as through the direct buffer.", write(balances, ReportFormat.JSON),
+                new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCallerBufferConstraints() throws Exception {
+        new ReportWriter(Channels.newChannel(new ByteArrayOutputStream()), ReportFormat.JSON, ByteBuffer.allocate(16));
+    }
+
+    @Test
+    public void testFormatAmount() throws Exception {
+        Assert.assertEquals("Amount incorrect.", "0", ReportWriter.formatAmount(0));
+        Assert.assertEquals("Amount incorrect.", "-0.05", ReportWriter.formatAmount(-5));
+        Assert.assertEquals("Amount incorrect.", "-100.5", ReportWriter.formatAmount(-10050));
+        Assert.assertEquals("Amount incorrect.", "1234567.89", ReportWriter.formatAmount(123456789));
+        Assert.assertEquals("Amount incorrect.", "12", ReportWriter.formatAmount(1200));
+    }
+
+    @Test
+    public void testReportFormatOf() throws Exception {
+        Assert.assertEquals("Format incorrect.", ReportFormat.CSV, ReportFormat.of("csv"));
+        Assert.assertEquals("Format incorrect.", ReportFormat.JSON, ReportFormat.of("JSON"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReportFormatOfConstraints() throws Exception {
+        ReportFormat.of("xml");
+    }
+
+    private static String write(DailyBalanceSeries balances, ReportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReportWriter writer = new ReportWriter(Channels.newChannel(out), format)) {
+            writer.write(balances);
+        }
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,142 @@
+package com.bench.server;
+
+import com.bench.model.Transaction;
+import com.bench.model.TransactionModule;
+import com.bench.service.RequestPolicy;
+import com.bench.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Unit test for SyntheticTransactionServer, retrieving its transactions through TransactionService.
+ *
+ * Created by dlee.
+ */
+public class SyntheticTransactionServerTest {
+    private AsyncHttpClient httpClient;
+    private SyntheticTransactionServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        httpClient = new DefaultAsyncHttpClient();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+        }
+        httpClient.close();
+    }
+
+    @Test
+    public void testServesAllTransactions() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.setDateRange(LocalDate.of(2000, 1, 1), 10);
+        server.start();
+
+        List<Transaction> transactions = serviceOf(server, 8).getAllTransactions();
+
+        Assert.assertEquals("Transactions of all the pages.", 25, transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            Assert.assertEquals("Transaction in feed order.", server.getTransaction(i), transactions.get(i));
+            Assert.assertFalse("Date in range.", transactions.get(i).getDate().isBefore(LocalDate.of(2000, 1, 1)));
+            Assert.assertTrue("Date in range.", transactions.get(i).getDate().isBefore(LocalDate.of(2000, 1, 11)));
+        }
+        Assert.assertEquals("One request per page.", 3, server.getRequestCount());
+    }
+
+    @Test
+    public void testDeterministicFromSeed() throws Exception {
+        SyntheticTransactionServer same = new SyntheticTransactionServer(42, 25, 10);
+        SyntheticTransactionServer other = new SyntheticTransactionServer(43, 25, 10);
+        server = new SyntheticTransactionServer(42, 25, 10);
+
+        boolean differs = false;
+        for (int i = 0; i < 25; i++) {
+            Assert.assertEquals("Same transaction from the same seed.", same.getTransaction(i), server.getTransaction(i));
+            differs |= !other.getTransaction(i).equals(server.getTransaction(i));
+        }
+        Assert.assertTrue("Different transactions from another seed.", differs);
+    }
+
+    @Test
+    public void testNotFoundPastLastPage() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.start();
+
+        Response response = httpClient.prepareGet(server.getBaseUrl() + "/transactions/4.json").execute().get();
+        Assert.assertEquals("Past the last page.", 404, response.getStatusCode());
+    }
+
+    @Test(expected = IOException.class)
+    public void testErrorRate() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.setErrorRate(1);
+        server.start();
+
+        serviceOf(server, 8).getAllTransactions();
+    }
+
+    @Test
+    public void testErrorsRecoveredByRetries() throws Exception {
+        server = new SyntheticTransactionServer(42, 100, 10);
+        server.setErrorRate(0.3);
+        server.start();
+
+        RequestPolicy policy = new RequestPolicy();
+        policy.setMaxRetries(10);
+        policy.setBackoffMillis(1, 10);
+        TransactionService ts = serviceOf(server, 8);
+        ts.setRequestPolicy(policy);
+
+        Assert.assertEquals("Transactions of all the pages.", 100, ts.getAllTransactions().size());
+        Assert.assertTrue("Failed pages requested again.", server.getRequestCount() > 10);
+    }
+
+    @Test
+    public void testTotalCountDrift() throws Exception {
+        server = new SyntheticTransactionServer(42, 25, 10);
+        server.setTotalCountDrift(1);
+        server.start();
+
+        // one page at a time, so the pages are served at 25, 26 then 27 transactions
+        List<Transaction> transactions = serviceOf(server, 1).getAllTransactions();
+
+        Assert.assertEquals("Last page grew during the run.", 27, transactions.size());
+        Assert.assertEquals("Total count after the run.", 28, server.getTotalCount());
+        Assert.assertEquals("Appended transaction.", server.getTransaction(26), transactions.get(26));
+    }
+
+    @Test
+    public void testLatency() throws Exception {
+        server = new SyntheticTransactionServer(42, 5, 10);
+        server.setLatencyMillis(50);
+        server.start();
+
+        long start = System.nanoTime();
+        serviceOf(server, 1).getAllTransactions();
+        Assert.assertTrue("Response delayed by the latency.", System.nanoTime() - start >= 50000000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorConstraints() throws Exception {
+        new SyntheticTransactionServer(42, 25, 0);
+    }
+
+    private TransactionService serviceOf(SyntheticTransactionServer server, int maxConcurrentRequests) {
+        TransactionService ts = new TransactionService(httpClient, new ObjectMapper().registerModule(new TransactionModule()), maxConcurrentRequests);
+        ts.setBaseUrl(server.getBaseUrl());
+        return ts;
+    }
+}
@@ -0,0 +1,177 @@
+package com.bench.service;
+
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Unit test for PageFetch.
+ *
+ * Created by dlee.
+ */
+public class PageFetchTest {
+    private RequestPolicy policy;
+    private List<ListenableFuture<Response>> executed;
+
+    @Before
+    public void setUp() throws Exception {
+        policy = new RequestPolicy();
+        policy.setBackoffMillis(0, 0);
+        executed = new ArrayList<>();
+    }
+
+    @Test
+    public void testRetriesServerError() throws Exception {
+        Response success = response(200);
+        PageFetch fetch = fetch(respond(response(503)), respond(success)).start();
+
+        Assert.assertSame("Response of the retry.", success, fetch.get());
+        Assert.assertEquals("Status of the retry.", 200, fetch.getStatusCode());
+        Assert.assertEquals("Requested twice.", 2, executed.size());
+    }
+
+    @Test
+    public void testDoesNotRetryNotFound() throws Exception {
+        PageFetch fetch = fetch(respond(response(404)), respond(response(200))).start();
+
+        fetch.get();
+        Assert.assertEquals("Not found kept as is.", 404, fetch.getStatusCode());
+        Assert.assertEquals("Requested once.", 1, executed.size());
+    }
+
+    @Test
+    public void testReturnsLastResponseWhenRetriesExhausted() throws Exception {
+        policy.setMaxRetries(2);
+        PageFetch fetch = fetch(respond(response(500)), respond(response(502)), respond(response(503)), respond(response(200))).start();
+
+        fetch.get();
+        Assert.assertEquals("Last server error.", 503, fetch.getStatusCode());
+        Assert.assertEquals("Requested once plus the retries.", 3, executed.size());
+    }
+
+    @Test
+    public void testRetriesConnectionError() throws Exception {
+        Response success = response(200);
+        PageFetch fetch = fetch(fail(new ConnectException()), respond(success)).start();
+
+        Assert.assertSame("Response of the retry.", success, fetch.get());
+    }
+
+    @Test
+    public void testFailsWhenRetriesExhausted() throws Exception {
+        policy.setMaxRetries(1);
+        PageFetch fetch = fetch(fail(new ConnectException()), fail(new ConnectException())).start();
+
+        try {
+            fetch.get();
+            Assert.fail("Expecting the connection error.");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("Connection error.", e.getCause() instanceof ConnectException);
+        }
+        Assert.assertEquals("Requested once plus the retry.", 2, executed.size());
+    }
+
+    @Test
+    public void testHedgesSlowRequest() throws Exception {
+        LatencyWindow latencies = new LatencyWindow(4, 1);
+        latencies.record(1000000);
+        policy.setHedgePercentile(0.5);
+
+        ListenableFuture<Response> slow = pending();
+        Response success = response(200);
+        Iterator<ListenableFuture<Response>> requests = Arrays.asList(slow, respond(success)).iterator();
+        PageFetch fetch = new PageFetch(() -> record(requests.next()), policy, latencies, null).start();
+
+        Assert.assertSame("Response of the hedge.", success, fetch.get());
+        Assert.assertEquals("Requested twice.", 2, executed.size());
+        Mockito.verify(slow).cancel(true);
+    }
+
+    @Test(timeout = 5000)
+    public void testCancelsHedgeWhenPrimaryFails() throws Exception {
+        LatencyWindow latencies = new LatencyWindow(4, 1);
+        latencies.record(1000000);
+        policy.setHedgePercentile(0.5);
+
+        CompletableFuture<Response> primaryResponse = new CompletableFuture<>();
+        @SuppressWarnings("unchecked")
+        ListenableFuture<Response> primary = Mockito.mock(ListenableFuture.class);
+        Mockito.when(primary.toCompletableFuture()).thenReturn(primaryResponse);
+        ListenableFuture<Response> hedge = pending();
+        Iterator<ListenableFuture<Response>> requests = Arrays.asList(primary, hedge).iterator();
+        PageFetch fetch = new PageFetch(() -> record(requests.next()), policy, latencies, null).start();
+
+        Mockito.verify(hedge, Mockito.timeout(5000)).toCompletableFuture();
+        primaryResponse.completeExceptionally(new IllegalStateException());
+        try {
+            fetch.get();
+            Assert.fail("Expecting the error of the primary request.");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("Error of the primary request.", e.getCause() instanceof IllegalStateException);
+        }
+        Mockito.verify(hedge).cancel(true);
+    }
+
+    @Test
+    public void testNoHedgeWithoutLatencies() throws Exception {
+        policy.setHedgePercentile(0.5);
+        ListenableFuture<Response> slow = pending();
+        PageFetch fetch = fetch(slow, respond(response(200))).start();
+
+        Thread.sleep(50);
+        fetch.cancel();
+        Assert.assertEquals("Requested once.", 1, executed.size());
+        Mockito.verify(slow).cancel(true);
+    }
+
+    @SafeVarargs
+    private final PageFetch fetch(ListenableFuture<Response>... responses) {
+        Iterator<ListenableFuture<Response>> requests = Arrays.asList(responses).iterator();
+        return new PageFetch(() -> record(requests.next()), policy, new LatencyWindow(), null);
+    }
+
+    private ListenableFuture<Response> record(ListenableFuture<Response> request) {
+        executed.add(request);
+        return request;
+    }
+
+    private static Response response(int statusCode) {
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getStatusCode()).thenReturn(statusCode);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ListenableFuture<Response> respond(Response response) {
+        ListenableFuture<Response> request = Mockito.mock(ListenableFuture.class);
+        Mockito.when(request.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(response));
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ListenableFuture<Response> fail(Throwable error) {
+        CompletableFuture<Response> failed = new CompletableFuture<>();
+        failed.completeExceptionally(error);
+        ListenableFuture<Response> request = Mockito.mock(ListenableFuture.class);
+        Mockito.when(request.toCompletableFuture()).thenReturn(failed);
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ListenableFuture<Response> pending() {
+        ListenableFuture<Response> request = Mockito.mock(ListenableFuture.class);
+        Mockito.when(request.toCompletableFuture()).thenReturn(new CompletableFuture<>());
+        return request;
+    }
+}
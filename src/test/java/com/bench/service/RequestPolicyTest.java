@@ -0,0 +1,52 @@
+package com.bench.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Unit test for RequestPolicy.
+ *
+ * Created by dlee.
+ */
+public class RequestPolicyTest {
+
+    @Test
+    public void testBackoffIsJitteredAndBounded() throws Exception {
+        RequestPolicy policy = new RequestPolicy();
+        policy.setBackoffMillis(100, 1000);
+
+        Assert.assertEquals("No wait at the lowest jitter.", 0, policy.backoffMillis(1, 0));
+        Assert.assertEquals("Half the initial backoff.", 50, policy.backoffMillis(1, 0.5));
+        Assert.assertEquals("Doubled for the second retry.", 100, policy.backoffMillis(2, 0.5));
+        Assert.assertEquals("Doubled for the third retry.", 200, policy.backoffMillis(3, 0.5));
+        Assert.assertEquals("Capped by the max backoff.", 500, policy.backoffMillis(10, 0.5));
+        Assert.assertEquals("Capped for any retry.", 500, policy.backoffMillis(100, 0.5));
+    }
+
+    @Test
+    public void testRetryable() throws Exception {
+        RequestPolicy policy = new RequestPolicy();
+
+        Assert.assertTrue("Server error.", policy.isRetryable(503));
+        Assert.assertFalse("Not found.", policy.isRetryable(404));
+        Assert.assertFalse("Success.", policy.isRetryable(200));
+        Assert.assertTrue("Connection error.", policy.isRetryable(new ConnectException()));
+        Assert.assertTrue("Closed connection.", policy.isRetryable(new IOException()));
+        Assert.assertTrue("Timeout.", policy.isRetryable(new TimeoutException()));
+        Assert.assertFalse("Other error.", policy.isRetryable(new IllegalStateException()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHedgePercentileConstraints() throws Exception {
+        new RequestPolicy().setHedgePercentile(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBackoffConstraints() throws Exception {
+        new RequestPolicy().setBackoffMillis(100, 10);
+    }
+}
@@ -0,0 +1,160 @@
+package com.bench.service;
+
+import com.bench.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit test for TransactionPublisher, through TransactionService.publishTransactions().
+ *
+ * Created by dlee.
+ */
+public class TransactionPublisherTest {
+    private AsyncHttpClient httpClient;
+    private TransactionService ts;
+
+    @Before
+    public void setUp() throws Exception {
+        httpClient = Mockito.mock(AsyncHttpClient.class);
+        ts = new TransactionService(httpClient, new ObjectMapper());
+        stubPage(1, 200, "service/fan-out-1.json");
+        stubPage(2, 200, "service/fan-out-2.json");
+        stubPage(3, 200, "service/fan-out-3.json");
+    }
+
+    @Test
+    public void testRequestsPagesOnDemand() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ts.publishTransactions().subscribe(subscriber);
+        Mockito.verify(httpClient, Mockito.never()).prepareGet(Mockito.anyString());
+
+        subscriber.subscription.request(1);
+        subscriber.await("onNext");
+        Thread.sleep(50);
+        Assert.assertEquals("Expecting the first transaction.", LocalDate.of(2000, 1, 1), subscriber.transactions.get(0).getDate());
+        Mockito.verify(httpClient, Mockito.never()).prepareGet(endpointOf(2));
+
+        // the rest of the first page, then one transaction of the second page
+        subscriber.subscription.request(2);
+        subscriber.await("onNext");
+        subscriber.await("onNext");
+        Thread.sleep(50);
+        Assert.assertEquals("Expecting 3 transactions.", 3, subscriber.transactions.size());
+        Mockito.verify(httpClient).prepareGet(endpointOf(2));
+        Mockito.verify(httpClient, Mockito.never()).prepareGet(endpointOf(3));
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.await("onNext");
+        subscriber.await("onNext");
+        subscriber.await("onComplete");
+        for (int i = 0; i < subscriber.transactions.size(); i++) {
+            Assert.assertEquals("Expecting transactions in page order.", LocalDate.of(2000, 1, i + 1), subscriber.transactions.get(i).getDate());
+        }
+    }
+
+    @Test
+    public void testErrorOnFailedPage() throws Exception {
+        stubPage(2, 404, "service/fan-out-2.json");
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ts.publishTransactions().subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.await("onNext");
+        subscriber.await("onNext");
+        subscriber.await("onError");
+    }
+
+    @Test
+    public void testErrorOnNonPositiveRequest() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ts.publishTransactions().subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        subscriber.await("onError");
+        Assert.assertTrue("Expecting an invalid request.", subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ts.publishTransactions().subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        subscriber.await("onNext");
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(10);
+        Thread.sleep(50);
+        Assert.assertEquals("Expecting nothing after cancelling.", 1, subscriber.transactions.size());
+        Assert.assertTrue("Expecting no more signal.", subscriber.signals.isEmpty());
+    }
+
+    private static String endpointOf(int page) {
+        return TransactionService.DEFAULT_BASE_URL + "/transactions/" + page + ".json";
+    }
+
+    private void stubPage(int page, int statusCode, String resource) throws Exception {
+        BoundRequestBuilder pageBrb = Mockito.mock(BoundRequestBuilder.class);
+        ListenableFuture pageLf = Mockito.mock(ListenableFuture.class);
+        Response pageResponse = Mockito.mock(Response.class);
+
+        Mockito.when(httpClient.prepareGet(endpointOf(page))).thenReturn(pageBrb);
+        Mockito.when(pageBrb.execute()).thenReturn(pageLf);
+        Mockito.when(pageLf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(pageResponse));
+        Mockito.when(pageResponse.getStatusCode()).thenReturn(statusCode);
+        Mockito.when(pageResponse.getResponseBodyAsBytes()).thenReturn(IOUtils.toByteArray(TransactionPublisherTest.class.getClassLoader().getResourceAsStream(resource)));
+    }
+
+    /**
+     * Records the signals, to wait for them from the test.
+     */
+    private static class RecordingSubscriber implements Subscriber<Transaction> {
+        private final BlockingQueue<String> signals = new LinkedBlockingQueue<>();
+        private final List<Transaction> transactions = new CopyOnWriteArrayList<>();
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Transaction transaction) {
+            transactions.add(transaction);
+            signals.add("onNext");
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            signals.add("onError");
+        }
+
+        @Override
+        public void onComplete() {
+            signals.add("onComplete");
+        }
+
+        void await(String signal) throws InterruptedException {
+            Assert.assertEquals("Expecting the next signal.", signal, signals.poll(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -1,6 +1,15 @@
 package com.bench.service;
 
+import com.bench.aggregate.GroupedAggregator;
+import com.bench.cache.CheckpointStore;
+import com.bench.cache.PageCache;
+import com.bench.dedup.DedupReport;
+import com.bench.dedup.LongHashSet;
+import com.bench.metrics.TransactionMetrics;
+import com.bench.model.DailyBalanceSeries;
 import com.bench.model.Transaction;
+import com.bench.model.TransactionColumns;
+import com.bench.spill.SpillFile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.IOUtils;
 import org.asynchttpclient.AsyncHttpClient;
@@ -9,17 +18,24 @@ import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Response;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit test for TransactionService.
@@ -29,6 +45,10 @@ import java.util.TreeMap;
 public class TransactionServiceTest {
     private String payload1;
     private String payload2;
+    private String payload3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
 
     @Mock
     private AsyncHttpClient httpClient;
@@ -53,6 +73,7 @@ public class TransactionServiceTest {
 
         payload1 = IOUtils.toString(TransactionServiceTest.class.getClassLoader().getResourceAsStream("service/page-1.json"), Charset.defaultCharset());
         payload2 = IOUtils.toString(TransactionServiceTest.class.getClassLoader().getResourceAsStream("service/page-2.json"), Charset.defaultCharset());
+        payload3 = IOUtils.toString(TransactionServiceTest.class.getClassLoader().getResourceAsStream("service/single-page.json"), Charset.defaultCharset());
     }
 
     @Test(expected = IOException.class)
@@ -62,6 +83,7 @@ public class TransactionServiceTest {
         Mockito.when(brb.execute()).thenReturn(lf);
         Mockito.when(response.getStatusCode()).thenReturn(404);
         Mockito.when(lf.get()).thenReturn(response);
+        Mockito.when(lf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(response));
 
         ts.getAllTransactions();
     }
@@ -70,6 +92,7 @@ public class TransactionServiceTest {
     public void testGetAllTransactionsWhenNoMoreFoundResource() throws Exception {
         Mockito.when(brb.execute()).thenReturn(lf);
         Mockito.when(lf.get()).thenReturn(response);
+        Mockito.when(lf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(response));
 
         String endpoint1 = "http://resttest.bench.co/transactions/1.json";
         Mockito.when(httpClient.prepareGet(endpoint1)).thenReturn(brb);
@@ -78,7 +101,7 @@ public class TransactionServiceTest {
         Mockito.when(httpClient.prepareGet(endpoint2)).thenReturn(brb);
 
         Mockito.when(response.getStatusCode()).thenReturn(200).thenReturn(404);
-        Mockito.when(response.getResponseBody()).thenReturn(payload1).thenReturn(payload2);
+        Mockito.when(response.getResponseBodyAsBytes()).thenReturn(payload1.getBytes(StandardCharsets.UTF_8)).thenReturn(payload2.getBytes(StandardCharsets.UTF_8));
 
         ts.getAllTransactions();
     }
@@ -87,6 +110,7 @@ public class TransactionServiceTest {
     public void testGetAllTransactionsWhenExpectedTotalCountReached() throws Exception {
         Mockito.when(brb.execute()).thenReturn(lf);
         Mockito.when(lf.get()).thenReturn(response);
+        Mockito.when(lf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(response));
 
         String endpoint1 = "http://resttest.bench.co/transactions/1.json";
         Mockito.when(httpClient.prepareGet(endpoint1)).thenReturn(brb);
@@ -95,7 +119,7 @@ public class TransactionServiceTest {
         Mockito.when(httpClient.prepareGet(endpoint2)).thenReturn(brb);
 
         Mockito.when(response.getStatusCode()).thenReturn(200).thenReturn(200);
-        Mockito.when(response.getResponseBody()).thenReturn(payload1).thenReturn(payload2);
+        Mockito.when(response.getResponseBodyAsBytes()).thenReturn(payload1.getBytes(StandardCharsets.UTF_8)).thenReturn(payload2.getBytes(StandardCharsets.UTF_8));
 
         List<Transaction> t =  ts.getAllTransactions();
         Assert.assertEquals("Expecting only 3 transactions.", 3, t.size());
@@ -110,6 +134,225 @@ public class TransactionServiceTest {
         Assert.assertEquals("Expecting transaction list to equal.", expected, t);
     }
 
+    @Test
+    public void testGetAllTransactionsFansOutRemainingPagesInOrder() throws Exception {
+        ts = new TransactionService(httpClient, om, 2);
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+
+        List<Transaction> t = ts.getAllTransactions();
+        Assert.assertEquals("Expecting 5 transactions.", 5, t.size());
+        for (int i = 0; i < t.size(); i++) {
+            Assert.assertEquals("Expecting transactions in page order.", LocalDate.of(2000, 1, i + 1), t.get(i).getDate());
+        }
+        Mockito.verify(httpClient).prepareGet("http://resttest.bench.co/transactions/3.json");
+        Mockito.verify(httpClient, Mockito.never()).prepareGet("http://resttest.bench.co/transactions/4.json");
+    }
+
+    @Test(timeout = 5000)
+    public void testFailsFastOnLaterPage() throws Exception {
+        RequestPolicy policy = new RequestPolicy();
+        policy.setMaxRetries(0);
+        ts.setRequestPolicy(policy);
+        stubPage(1, "service/fan-out-1.json");
+        // page 2 never answers, page 3 fails
+        ListenableFuture pending = stubPending(2);
+        stubStatus(3, 500);
+
+        try {
+            ts.getAllTransactions();
+            Assert.fail("Expecting the failure of page 3.");
+        } catch (IOException e) {
+            Mockito.verify(pending).cancel(true);
+        }
+    }
+
+    @Test
+    public void testForEachTransactionStreamsInPageOrder() throws Exception {
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+
+        List<LocalDate> dates = new ArrayList<>();
+        ts.forEachTransaction(t -> dates.add(t.getDate()));
+        Assert.assertEquals("Expecting 5 transactions.", 5, dates.size());
+        Assert.assertEquals("Expecting first transaction of page 1.", LocalDate.of(2000, 1, 1), dates.get(0));
+        Assert.assertEquals("Expecting last transaction of page 3.", LocalDate.of(2000, 1, 5), dates.get(4));
+    }
+
+    @Test
+    public void testGetAllTransactionsFromBaseUrl() throws Exception {
+        stubPage("http://localhost:8080", 1, "service/fan-out-1.json");
+        stubPage("http://localhost:8080", 2, "service/fan-out-2.json");
+        stubPage("http://localhost:8080", 3, "service/fan-out-3.json");
+
+        ts.setBaseUrl("http://localhost:8080/");
+        Assert.assertEquals("Transactions from the base URL.", 5, ts.getAllTransactions().size());
+    }
+
+    @Test
+    public void testGetAllTransactionsAsync() throws Exception {
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+
+        List<Transaction> t = ts.getAllTransactionsAsync().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("Expecting 5 transactions.", 5, t.size());
+        for (int i = 0; i < t.size(); i++) {
+            Assert.assertEquals("Expecting transactions in page order.", LocalDate.of(2000, 1, i + 1), t.get(i).getDate());
+        }
+
+        DailyBalanceSeries balances = ts.calculateDailyBalancesAsync().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("Expecting the same balances.", ts.calculateDailyBalances(t).asSortedMap(), balances.asSortedMap());
+    }
+
+    @Test
+    public void testGetAllTransactionsAsyncWhenNotFoundResource() throws Exception {
+        String endpoint = "http://resttest.bench.co/transactions/1.json";
+        Mockito.when(httpClient.prepareGet(endpoint)).thenReturn(brb);
+        Mockito.when(brb.execute()).thenReturn(lf);
+        Mockito.when(response.getStatusCode()).thenReturn(404);
+        Mockito.when(lf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(response));
+
+        try {
+            ts.getAllTransactionsAsync().get(5, TimeUnit.SECONDS);
+            Assert.fail("Expecting the retrieval to fail.");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("Expecting an IOException.", e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testGetAllTransactionsRecordsMetrics() throws Exception {
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+        TransactionMetrics metrics = new TransactionMetrics();
+        ts.setMetrics(metrics);
+
+        ts.calculateTotalBalance(ts.getAllTransactions());
+        Assert.assertEquals("Pages.", 3, metrics.getPages());
+        Assert.assertEquals("Transactions.", 5, metrics.getTransactions());
+        Assert.assertTrue("Bytes.", metrics.getResponseBytes() > 0);
+        Assert.assertTrue("Aggregation.", metrics.getAggregationMillis() > 0);
+    }
+
+    @Test
+    public void testGetAllTransactionsRevalidatesCachedPages() throws Exception {
+        PageCache cache = new PageCache(folder.getRoot().toPath());
+        ts.setPageCache(cache);
+
+        String endpoint = "http://resttest.bench.co/transactions/1.json";
+        Mockito.when(httpClient.prepareGet(endpoint)).thenReturn(brb);
+        Mockito.when(brb.execute()).thenReturn(lf);
+        Mockito.when(lf.get()).thenReturn(response);
+        Mockito.when(lf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(response));
+        Mockito.when(response.getStatusCode()).thenReturn(200).thenReturn(304);
+        Mockito.when(response.getHeader("ETag")).thenReturn("\"v1\"");
+        Mockito.when(response.getResponseBodyAsBytes()).thenReturn(payload3.getBytes(StandardCharsets.UTF_8));
+
+        List<Transaction> first = ts.getAllTransactions();
+        List<Transaction> second = ts.getAllTransactions();
+
+        Mockito.verify(brb).setHeader("If-None-Match", "\"v1\"");
+        Mockito.verify(response, Mockito.times(1)).getResponseBodyAsBytes();
+        Assert.assertEquals("Expecting 1 transaction.", 1, first.size());
+        Assert.assertEquals("Expecting the cached page.", first, second);
+    }
+
+    @Test
+    public void testSyncDailyBalancesResumesFromCheckpoint() throws Exception {
+        ts.setCheckpointStore(new CheckpointStore(folder.getRoot().toPath().resolve("checkpoint")));
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+        DailyBalanceSeries first = ts.syncDailyBalances();
+        Assert.assertTrue("Incorrect balance.", Double.compare(404.2d, first.getLastBalance()) == 0);
+
+        // the feed grew by one transaction on the partial last page
+        stubPage(1, "service/grown-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/grown-3.json");
+        DailyBalanceSeries second = ts.syncDailyBalances();
+
+        Mockito.verify(httpClient, Mockito.times(1)).prepareGet("http://resttest.bench.co/transactions/2.json");
+        Mockito.verify(httpClient, Mockito.times(2)).prepareGet("http://resttest.bench.co/transactions/3.json");
+        Assert.assertEquals("Incorrect last date.", LocalDate.of(2000, 1, 6), second.getLastDate());
+        Assert.assertTrue("Incorrect balance.", Double.compare(405.45d, second.getLastBalance()) == 0);
+        Assert.assertEquals("Expecting the same balances as a full calculation.",
+                ts.calculateDailyBalances(ts.getAllTransactions()).asSortedMap(), second.asSortedMap());
+    }
+
+    @Test
+    public void testSyncDailyBalancesRebuildsWhenTotalCountShrinks() throws Exception {
+        ts.setCheckpointStore(new CheckpointStore(folder.getRoot().toPath().resolve("checkpoint")));
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+        ts.syncDailyBalances();
+
+        stubPage(1, "service/shrunk-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        DailyBalanceSeries balances = ts.syncDailyBalances();
+
+        Mockito.verify(httpClient, Mockito.times(2)).prepareGet("http://resttest.bench.co/transactions/2.json");
+        Assert.assertEquals("Incorrect last date.", LocalDate.of(2000, 1, 4), balances.getLastDate());
+        Assert.assertTrue("Incorrect balance.", Double.compare(409.2d, balances.getLastBalance()) == 0);
+    }
+
+    @Test
+    public void testForEachTransactionRejectsShiftedRepeats() throws Exception {
+        TransactionMetrics metrics = new TransactionMetrics();
+        ts.setMetrics(metrics);
+        ts.setFingerprints(LongHashSet::new);
+        // a transaction was added before page 2 was retrieved, shifting the last transaction of page 1 onto page 2
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/shifted-2.json");
+        stubPage(3, "service/fan-out-3.json");
+
+        List<Transaction> t = ts.getAllTransactions();
+        Assert.assertEquals("Expecting the repeat rejected.", 4, t.size());
+        DedupReport report = ts.getLastDedupReport();
+        Assert.assertEquals("Expected count.", 5, report.getExpectedCount());
+        Assert.assertEquals("Unique count.", 4, report.getUniqueCount());
+        Assert.assertEquals("Duplicate count.", 1, report.getDuplicateCount());
+        Assert.assertTrue("Expecting the count mismatch detected.", report.isCountMismatch());
+        Assert.assertEquals("Duplicates recorded.", 1, metrics.getDuplicates());
+        Assert.assertEquals("Mismatch recorded.", 1, metrics.getCountMismatches());
+
+        // each retrieval starts from an empty set
+        stubPage(2, "service/fan-out-2.json");
+        DailyBalanceSeries balances = ts.syncDailyBalances();
+        Assert.assertTrue("Incorrect balance.", Double.compare(404.2d, balances.getLastBalance()) == 0);
+        Assert.assertFalse("Expecting the counts to match.", ts.getLastDedupReport().isCountMismatch());
+        Assert.assertEquals("No duplicate.", 0, ts.getLastDedupReport().getDuplicateCount());
+    }
+
+    @Test
+    public void testForEachTransactionAsyncReportsRepeats() throws Exception {
+        TransactionMetrics metrics = new TransactionMetrics();
+        ts.setMetrics(metrics);
+        ts.setFingerprints(LongHashSet::new);
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/shifted-2.json");
+        stubPage(3, "service/fan-out-3.json");
+
+        List<Transaction> t = ts.getAllTransactionsAsync().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("Expecting the repeat rejected.", 4, t.size());
+        DedupReport report = ts.getLastDedupReport();
+        Assert.assertEquals("Expected count.", 5, report.getExpectedCount());
+        Assert.assertEquals("Duplicate count.", 1, report.getDuplicateCount());
+        Assert.assertTrue("Expecting the count mismatch detected.", report.isCountMismatch());
+        Assert.assertEquals("Duplicates recorded.", 1, metrics.getDuplicates());
+        Assert.assertEquals("Mismatch recorded.", 1, metrics.getCountMismatches());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorConstraints() throws Exception {
+        new TransactionService(httpClient, om, 0);
+    }
+
     @Test
     public void testCalculateTotalBalance() throws Exception {
         Transaction t1 = new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", -100.55, "Company A");
@@ -143,8 +386,118 @@ public class TransactionServiceTest {
         Assert.assertEquals("Running daily total incorrect.", expected, actual);
     }
 
+    @Test
+    public void testCalculateRunningDailyTotalRoundsToCents() throws Exception {
+        List<Transaction> t = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            t.add(new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 0.333, "Company A"));
+        }
+
+        SortedMap<LocalDate, Double> expected = new TreeMap<>();
+        expected.put(LocalDate.of(1999, 12, 31), 0d);
+        expected.put(LocalDate.of(2000, 1, 1), 0.99d);
+        Assert.assertEquals("Expecting each amount rounded to cents.", expected, ts.calculateRunningDailyTotal(t));
+    }
+
+    @Test
+    public void testCalculateWithColumns() throws Exception {
+        TransactionColumns t = new TransactionColumns();
+        t.add(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A");
+        t.add(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B");
+        t.add(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company C");
+
+        SortedMap<LocalDate, Double> expected = new TreeMap<>();
+        expected.put(LocalDate.of(1999, 12, 31), 0d);
+        expected.put(LocalDate.of(2000, 1, 1), 489.5d);
+        expected.put(LocalDate.of(2000, 1, 2), 489.5d);
+        expected.put(LocalDate.of(2000, 1, 3), 388.95d);
+
+        Assert.assertTrue("Total balance incorrect.", Double.compare(388.95d, ts.calculateTotalBalance(t)) == 0);
+        Assert.assertEquals("Running daily total incorrect.", expected, ts.calculateRunningDailyTotal(t));
+        Assert.assertEquals("Expected empty map.", 0, ts.calculateRunningDailyTotal(new TransactionColumns()).size());
+    }
+
+    @Test
+    public void testCalculateGroupedBalances() throws Exception {
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+
+        List<Transaction> t = ts.getAllTransactions();
+        GroupedAggregator fromList = ts.calculateGroupedBalances(t);
+        GroupedAggregator fromColumns = ts.calculateGroupedBalances(ts.getAllTransactionColumns());
+
+        Assert.assertTrue("Total balance incorrect.", Double.compare(ts.calculateTotalBalance(t), fromList.getTotalBalance()) == 0);
+        Assert.assertEquals("Ledger totals incorrect.", fromList.getLedgers().getTotals(), fromColumns.getLedgers().getTotals());
+        Assert.assertEquals("Company totals incorrect.", fromList.getCompanies().getTotals(), fromColumns.getCompanies().getTotals());
+        long ledgerSum = 0;
+        for (String ledger : fromList.getLedgers().getNames()) {
+            ledgerSum += fromList.getLedgers().getTotalMinorUnits(ledger);
+        }
+        Assert.assertEquals("Ledger totals add up to the total.", fromList.getTotalMinorUnits(), ledgerSum);
+    }
+
+    @Test
+    public void testSpillAllTransactions() throws Exception {
+        stubPage(1, "service/fan-out-1.json");
+        stubPage(2, "service/fan-out-2.json");
+        stubPage(3, "service/fan-out-3.json");
+
+        Path file = folder.getRoot().toPath().resolve("transactions.spill");
+        try (SpillFile spill = ts.spillAllTransactions(file)) {
+            List<Transaction> t = new ArrayList<>();
+            spill.forEach(t::add);
+            Assert.assertEquals("Expecting 5 transactions in page order.", ts.getAllTransactions(), t);
+            Assert.assertTrue("Total balance incorrect.", Double.compare(ts.calculateTotalBalance(t), ts.calculateTotalBalance(spill)) == 0);
+            Assert.assertEquals("Running daily total incorrect.", ts.calculateRunningDailyTotal(t), ts.calculateRunningDailyTotal(spill));
+        }
+
+        // a later run reads the spill file without any request
+        try (SpillFile spill = SpillFile.open(file)) {
+            Assert.assertEquals("Expecting 5 transactions.", 5, spill.size());
+        }
+    }
+
     @Test
     public void testCalculateRunningDailyTotalWhenNoTransactions() throws Exception {
         Assert.assertEquals("Expected empty map.", 0, ts.calculateRunningDailyTotal(new ArrayList<>()).size());
     }
+
+    private void stubPage(int page, String resource) throws Exception {
+        stubPage(TransactionService.DEFAULT_BASE_URL, page, resource);
+    }
+
+    private ListenableFuture stubPending(int page) throws Exception {
+        BoundRequestBuilder pageBrb = Mockito.mock(BoundRequestBuilder.class);
+        ListenableFuture pageLf = Mockito.mock(ListenableFuture.class);
+
+        Mockito.when(httpClient.prepareGet(TransactionService.DEFAULT_BASE_URL + "/transactions/" + page + ".json")).thenReturn(pageBrb);
+        Mockito.when(pageBrb.execute()).thenReturn(pageLf);
+        Mockito.when(pageLf.toCompletableFuture()).thenReturn(new CompletableFuture<>());
+        return pageLf;
+    }
+
+    private void stubStatus(int page, int statusCode) throws Exception {
+        BoundRequestBuilder pageBrb = Mockito.mock(BoundRequestBuilder.class);
+        ListenableFuture pageLf = Mockito.mock(ListenableFuture.class);
+        Response pageResponse = Mockito.mock(Response.class);
+
+        Mockito.when(httpClient.prepareGet(TransactionService.DEFAULT_BASE_URL + "/transactions/" + page + ".json")).thenReturn(pageBrb);
+        Mockito.when(pageBrb.execute()).thenReturn(pageLf);
+        Mockito.when(pageLf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(pageResponse));
+        Mockito.when(pageResponse.getStatusCode()).thenReturn(statusCode);
+    }
+
+    private void stubPage(String baseUrl, int page, String resource) throws Exception {
+        BoundRequestBuilder pageBrb = Mockito.mock(BoundRequestBuilder.class);
+        ListenableFuture pageLf = Mockito.mock(ListenableFuture.class);
+        Response pageResponse = Mockito.mock(Response.class);
+
+        Mockito.when(httpClient.prepareGet(baseUrl + "/transactions/" + page + ".json")).thenReturn(pageBrb);
+        Mockito.when(pageBrb.execute()).thenReturn(pageLf);
+        Mockito.when(pageLf.get()).thenReturn(pageResponse);
+        Mockito.when(pageLf.toCompletableFuture()).thenReturn(CompletableFuture.completedFuture(pageResponse));
+        Mockito.when(pageResponse.getStatusCode()).thenReturn(200);
+        Mockito.when(pageResponse.getResponseBodyAsBytes()).thenReturn(IOUtils.toByteArray(TransactionServiceTest.class.getClassLoader().getResourceAsStream(resource)));
+    }
 }
@@ -0,0 +1,85 @@
+package com.bench.service;
+
+import com.bench.metrics.TransactionMetrics;
+import com.bench.model.Transaction;
+import com.bench.model.TransactionModule;
+import com.bench.server.SyntheticTransactionServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Unit test for TransportProfile, retrieving the transactions of a synthetic server.
+ *
+ * Created by dlee.
+ */
+public class TransportProfileTest {
+    private SyntheticTransactionServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SyntheticTransactionServer(42, 500, 100);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+        TransactionMetrics metrics = new TransactionMetrics();
+        TransportProfile profile = new TransportProfile();
+        try (AsyncHttpClient httpClient = profile.createHttpClient(metrics)) {
+            Response response = httpClient.prepareGet(server.getBaseUrl() + "/transactions/1.json").execute().get();
+            Assert.assertEquals("Inflated body.", '{', response.getResponseBody().charAt(0));
+
+            List<Transaction> transactions = serviceOf(httpClient, metrics).getAllTransactions();
+            Assert.assertEquals("Transactions of all the pages.", 500, transactions.size());
+            Assert.assertEquals("Same transactions.", server.getTransaction(499), transactions.get(499));
+        }
+        Assert.assertTrue("Compressed transfer: " + metrics.summary(), metrics.getTransferBytes() * 2 < metrics.getResponseBytes());
+    }
+
+    @Test
+    public void testWithoutCompression() throws Exception {
+        TransactionMetrics metrics = new TransactionMetrics();
+        TransportProfile profile = new TransportProfile();
+        profile.setCompression(false);
+        try (AsyncHttpClient httpClient = profile.createHttpClient(metrics)) {
+            Assert.assertEquals("Transactions of all the pages.", 500, serviceOf(httpClient, metrics).getAllTransactions().size());
+        }
+        Assert.assertTrue("Bodies and headers transferred as is.", metrics.getTransferBytes() > metrics.getResponseBytes());
+    }
+
+    @Test
+    public void testWithoutMetrics() throws Exception {
+        try (AsyncHttpClient httpClient = new TransportProfile().createHttpClient(null)) {
+            Assert.assertEquals("Transactions of all the pages.", 500, serviceOf(httpClient, null).getAllTransactions().size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadTimeoutConstraints() throws Exception {
+        new TransportProfile().setReadTimeoutMillis(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxConnectionsPerHostConstraints() throws Exception {
+        new TransportProfile().setMaxConnectionsPerHost(0);
+    }
+
+    private TransactionService serviceOf(AsyncHttpClient httpClient, TransactionMetrics metrics) {
+        TransactionService ts = new TransactionService(httpClient, new ObjectMapper().registerModule(new TransactionModule()));
+        ts.setBaseUrl(server.getBaseUrl());
+        ts.setMetrics(metrics);
+        return ts;
+    }
+}
@@ -0,0 +1,149 @@
+package com.bench.spill;
+
+import com.bench.model.Transaction;
+import com.bench.model.TransactionColumns;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit test for SpillWriter and SpillFile.
+ *
+ * Created by dlee.
+ */
+public class SpillFileTest {
+    private static final List<Transaction> TRANSACTIONS = Arrays.asList(
+            new Transaction(LocalDate.of(2000, 1, 3), "Ledger X", -100.55, "Company A"),
+            new Transaction(LocalDate.of(2000, 1, 1), "Ledger Y", -10.5, "Company B"),
+            new Transaction(LocalDate.of(2000, 1, 1), "Ledger X", 500, "Company C"));
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("dir").resolve("transactions.spill");
+        try (SpillWriter writer = new SpillWriter(file)) {
+            TRANSACTIONS.forEach(writer);
+            Assert.assertFalse("No spill file until committed.", Files.exists(file));
+            writer.commit();
+        }
+
+        try (SpillFile spill = SpillFile.open(file)) {
+            Assert.assertEquals("Size incorrect.", 3, spill.size());
+            Assert.assertEquals("Total incorrect.", 38895L, spill.sumMinorUnits());
+            Assert.assertEquals("Earliest day incorrect.", LocalDate.of(2000, 1, 1).toEpochDay(), spill.minEpochDay());
+            Assert.assertEquals("Last day incorrect.", LocalDate.of(2000, 1, 3).toEpochDay(), spill.maxEpochDay());
+            Assert.assertArrayEquals("Daily totals incorrect.", new long[]{0, 48950, 0, -10055},
+                    spill.sumMinorUnitsByDay(spill.minEpochDay() - 1, 4));
+            Assert.assertEquals("Dictionary incorrect.", "Ledger Y", spill.getLedgers().decode(1));
+
+            List<Transaction> read = new ArrayList<>();
+            spill.forEach(read::add);
+            Assert.assertEquals("Transactions in written order.", TRANSACTIONS, read);
+            Assert.assertEquals("Transaction incorrect.", TRANSACTIONS.get(2), spill.getTransaction(2));
+        }
+        Assert.assertEquals("Only the spill file left.", 1, Files.list(file.getParent()).count());
+    }
+
+    @Test
+    public void testAcrossChunks() throws Exception {
+        Random random = new Random(42);
+        TransactionColumns columns = new TransactionColumns();
+        Path file = folder.getRoot().toPath().resolve("transactions.spill");
+        try (SpillWriter writer = new SpillWriter(file, 7)) {
+            for (int i = 0; i < 1000; i++) {
+                Transaction transaction = new Transaction(LocalDate.of(2000, 1, 1).plusDays(random.nextInt(400)),
+                        "Ledger " + random.nextInt(5), (random.nextInt(200001) - 100000) / 100d, "Company " + random.nextInt(50));
+                writer.accept(transaction);
+                columns.accept(transaction);
+            }
+            writer.commit();
+        }
+
+        try (SpillFile spill = SpillFile.open(file, 16)) {
+            Assert.assertEquals("Size incorrect.", columns.size(), spill.size());
+            Assert.assertEquals("Total incorrect.", columns.sumMinorUnits(), spill.sumMinorUnits());
+            Assert.assertEquals("Earliest day incorrect.", columns.minEpochDay(), spill.minEpochDay());
+            int startDay = columns.minEpochDay() - 1;
+            int days = columns.maxEpochDay() - startDay + 1;
+            Assert.assertArrayEquals("Daily totals incorrect.", columns.sumMinorUnitsByDay(startDay, days), spill.sumMinorUnitsByDay(startDay, days));
+            for (int i : new int[]{0, 15, 16, 999}) {
+                Assert.assertEquals("Transaction incorrect.", columns.getTransaction(i), spill.getTransaction(i));
+            }
+        }
+    }
+
+    @Test
+    public void testMissingValues() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("transactions.spill");
+        try (SpillWriter writer = new SpillWriter(file)) {
+            writer.add(LocalDate.of(2000, 1, 1), null, 1, "");
+            writer.commit();
+        }
+        try (SpillFile spill = SpillFile.open(file)) {
+            Assert.assertNull("Missing ledger kept.", spill.getTransaction(0).getLedger());
+            Assert.assertEquals("Empty company kept.", "", spill.getTransaction(0).getCompany());
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("transactions.spill");
+        try (SpillWriter writer = new SpillWriter(file)) {
+            writer.commit();
+        }
+        try (SpillFile spill = SpillFile.open(file)) {
+            Assert.assertEquals("Size incorrect.", 0, spill.size());
+            Assert.assertEquals("Total incorrect.", 0L, spill.sumMinorUnits());
+        }
+    }
+
+    @Test
+    public void testNotCommitted() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("transactions.spill");
+        Files.write(file, new byte[]{1, 2, 3});
+        try (SpillWriter writer = new SpillWriter(file)) {
+            TRANSACTIONS.forEach(writer);
+        }
+        Assert.assertArrayEquals("Previous file kept.", new byte[]{1, 2, 3}, Files.readAllBytes(file));
+        Assert.assertEquals("Temporary file removed.", 1, Files.list(folder.getRoot().toPath()).count());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenWhenNotSpillFile() throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[64]);
+        SpillFile.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenWhenCutShort() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("transactions.spill");
+        try (SpillWriter writer = new SpillWriter(file)) {
+            TRANSACTIONS.forEach(writer);
+            writer.commit();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, 50));
+        SpillFile.open(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddAfterCommit() throws Exception {
+        try (SpillWriter writer = new SpillWriter(folder.getRoot().toPath().resolve("transactions.spill"))) {
+            writer.commit();
+            writer.accept(TRANSACTIONS.get(0));
+        }
+    }
+}